@@ -0,0 +1,108 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  벤치마크에서 사용하는 입력 파일과 DB 를 만든다
+ *
+ *  모든 값은 행 번호로부터 만들어지기 때문에 같은 rows 로 만들면 항상 같은 파일이 된다
+ *  엑셀 / csv 의 컬럼 구성은 WinEntity 와 같다 (id, username, win, reward) - 첫 행은 헤더
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static String username(int i) {
+        return "user" + i;
+    }
+
+    static long win(int i) {
+        return i % 20;
+    }
+
+    static boolean reward(int i) {
+        return i % 3 == 0;
+    }
+
+    static Path writeWinExcel(Path dir, int rows) throws IOException {
+        Path file = dir.resolve("win-" + rows + ".xlsx");
+
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+             OutputStream out = Files.newOutputStream(file)) {
+
+            Sheet sheet = workbook.createSheet("Sheet1");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("id");
+            header.createCell(1).setCellValue("username");
+            header.createCell(2).setCellValue("win");
+            header.createCell(3).setCellValue("reward");
+
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(username(i));
+                row.createCell(2).setCellValue(win(i));
+                row.createCell(3).setCellValue(reward(i));
+            }
+
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    static Path writeWinCsv(Path dir, int rows) throws IOException {
+        Path file = dir.resolve("win-" + rows + ".csv");
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,username,win,reward\n");
+            for (int i = 1; i <= rows; i++) {
+                writer.write(i + "," + username(i) + "," + win(i) + "," + reward(i) + "\n");
+            }
+        }
+        return file;
+    }
+
+    static List<BeforeEntity> beforeEntities(int rows) {
+        List<BeforeEntity> entities = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            BeforeEntity entity = new BeforeEntity();
+            entity.setId((long) i);
+            entity.setUsername(username(i));
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     *  MySQL 모드의 H2 메모리 DB
+     *  테이블은 hibernate 가 MySQL 에 만드는 것과 같은 구조로 만든다 (id 는 auto_increment)
+     */
+    static DataSource h2DataSource(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS BeforeEntity (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS AfterEntity (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS WinEntity (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255), win BIGINT, reward BOOLEAN)");
+        return dataSource;
+    }
+}
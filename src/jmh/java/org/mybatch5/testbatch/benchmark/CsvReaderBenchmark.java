@@ -0,0 +1,106 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.mybatch5.testbatch.batch.MappedCsvItemReader;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.mapping.EntityMappings;
+import org.mybatch5.testbatch.mapping.MappedFieldSetMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  csvReaderJob 의 csvReader 와 같은 설정의 reader 가 ROWS 개의 행을 읽는 속도
+ *  (csvReader 빈은 로컬 경로가 고정되어 있어서 같은 설정으로 만든다)
+ *
+ *  csvReader            - MappedCsvItemReader (메모리 맵 + 바이트 단위 분리)
+ *  flatFileCsvReader    - FlatFileItemReader + MappedFieldSetMapper
+ *  beanWrapperCsvReader - FlatFileItemReader + names() + BeanWrapperFieldSetMapper (처음 설정)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvReaderBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("csv-reader-bench");
+        file = BenchmarkFixtures.writeWinCsv(dir, ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void csvReader(Blackhole blackhole) throws Exception {
+        readAll(new MappedCsvItemReader<>(file, EntityMappings.WIN_ENTITY, "csvReader"), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void flatFileCsvReader(Blackhole blackhole) throws Exception {
+        MappedFieldSetMapper<WinEntity> mapper = new MappedFieldSetMapper<>(EntityMappings.WIN_ENTITY);
+
+        readAll(new FlatFileItemReaderBuilder<WinEntity>()
+                .name("csvReader")
+                .resource(new FileSystemResource(file))
+                .lineTokenizer(new DelimitedLineTokenizer())
+                .linesToSkip(1)
+                .skippedLinesCallback(mapper)
+                .fieldSetMapper(mapper)
+                .build(), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void beanWrapperCsvReader(Blackhole blackhole) throws Exception {
+        readAll(new FlatFileItemReaderBuilder<WinEntity>()
+                .name("csvReader")
+                .resource(new FileSystemResource(file))
+                .delimited()
+                .names("id", "username", "win", "reward")
+                .linesToSkip(1)
+                .fieldSetMapper(new BeanWrapperFieldSetMapper<WinEntity>() {{
+                    setTargetType(WinEntity.class);
+                }})
+                .build(), blackhole);
+    }
+
+    private void readAll(ItemStreamReader<WinEntity> reader, Blackhole blackhole) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            WinEntity entity;
+            while ((entity = reader.read()) != null) {
+                blackhole.consume(entity);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
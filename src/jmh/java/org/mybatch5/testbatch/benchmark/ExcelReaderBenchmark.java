@@ -0,0 +1,101 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.mybatch5.testbatch.batch.ExcelReader;
+import org.mybatch5.testbatch.batch.ExcelRow;
+import org.mybatch5.testbatch.batch.ExcelRowReader;
+import org.mybatch5.testbatch.batch.StreamingExcelRowReader;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  엑셀 reader 들이 시트 전체를 읽는 속도
+ *
+ *  한 번의 호출이 ROWS 개의 행을 읽고 @OperationsPerInvocation(ROWS) 로 나누기 때문에
+ *  결과는 초당 행 수(ops/s = rows/s), gc.alloc.rate.norm 은 행 당 할당량이 된다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExcelReaderBenchmark {
+
+    private static final int ROWS = 20_000;
+
+    private Path dir;
+    private String file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("excel-reader-bench");
+        file = BenchmarkFixtures.writeWinExcel(dir, ROWS).toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    // WorkbookFactory 로 시트 전체를 메모리에 올린 뒤 읽는다
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void excelRowReader(Blackhole blackhole) throws Exception {
+        ExcelRowReader reader = new ExcelRowReader(file);
+        reader.open(new ExecutionContext());
+        try {
+            Row row;
+            while ((row = reader.read()) != null) {
+                blackhole.consume(row);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // XlsxSheetStreamer 로 한 행씩 읽는다
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void streamingExcelRowReader(Blackhole blackhole) {
+        StreamingExcelRowReader reader = new StreamingExcelRowReader(file);
+        reader.open(new ExecutionContext());
+        try {
+            ExcelRow row;
+            while ((row = reader.read()) != null) {
+                blackhole.consume(row);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // 행을 WinEntity 로 변환까지 한다 (excelReadJob 의 reader)
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void excelReader(Blackhole blackhole) throws Exception {
+        ExcelReader reader = new ExcelReader(file);
+        reader.open(new ExecutionContext());
+        try {
+            WinEntity entity;
+            while ((entity = reader.read()) != null) {
+                blackhole.consume(entity);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
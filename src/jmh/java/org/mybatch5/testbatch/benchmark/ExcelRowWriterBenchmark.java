@@ -0,0 +1,93 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.mybatch5.testbatch.batch.ExcelRowWriter;
+import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  ExcelRowWriter 가 ROWS 개의 행을 청크 단위로 기록하고 파일을 닫을 때까지의 속도
+ *
+ *  mode
+ *      - xssf        : 워크북 전체를 메모리에 유지 (기본 생성자)
+ *      - sxssf       : SXSSF 스트리밍 (window 1000, 임시 파일 압축)
+ *      - restartable : 청크마다 저널에 기록하고 close() 에서 xlsx 를 만든다 (fifthJob 의 설정)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExcelRowWriterBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Param({"xssf", "sxssf", "restartable"})
+    public String mode;
+
+    private Path dir;
+    private List<Chunk<BeforeEntity>> chunks;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("excel-writer-bench");
+
+        List<BeforeEntity> entities = BenchmarkFixtures.beforeEntities(ROWS);
+        chunks = new ArrayList<>();
+        for (int i = 0; i < ROWS; i += CHUNK_SIZE) {
+            chunks.add(new Chunk<>(entities.subList(i, Math.min(i + CHUNK_SIZE, ROWS))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void write() throws Exception {
+        String file = dir.resolve("out-" + (invocation++ % 4) + ".xlsx").toString();
+
+        ExcelRowWriter writer = switch (mode) {
+            case "sxssf" -> new ExcelRowWriter(file, 1000, true);
+            case "restartable" -> new ExcelRowWriter(file, 1000, true, true);
+            default -> new ExcelRowWriter(file);
+        };
+
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        for (Chunk<BeforeEntity> chunk : chunks) {
+            writer.write(chunk);
+            writer.update(executionContext);
+        }
+
+        // 재시작 가능 모드는 step 이 COMPLETED 인 경우에만 close() 에서 xlsx 를 만든다
+        StepExecution stepExecution = new StepExecution("benchmarkStep", new JobExecution(1L));
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        writer.afterStep(stepExecution);
+
+        writer.close();
+    }
+}
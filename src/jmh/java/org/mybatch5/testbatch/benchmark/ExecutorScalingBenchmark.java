@@ -0,0 +1,145 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.mybatch5.testbatch.config.BatchTaskExecutorConfig;
+import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.mybatch5.testbatch.entity.CustomBeforeRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  sixthPartitionJob 처럼 id 구간을 나눠서 여러 스레드에서 JDBC 로 읽고 쓰는 작업이
+ *  executor 종류(platform / virtual)와 동시 실행 수(threads)에 따라 어떻게 늘어나는지 측정한다
+ *
+ *  H2 메모리 DB 는 네트워크 왕복이 없기 때문에, 페이지를 읽고 쓸 때마다 ROUND_TRIP_MILLIS 만큼 기다려서
+ *  MySQL 과 통신하는 동안 스레드가 블록되는 상황을 흉내낸다
+ *
+ *  한 번의 호출이 ROWS 건을 PARTITIONS 개의 구간으로 나눠서 처리하므로 결과는 초당 행 수다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExecutorScalingBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int PARTITIONS = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final long ROUND_TRIP_MILLIS = 2;
+
+    @Param({BatchTaskExecutorConfig.PLATFORM, BatchTaskExecutorConfig.VIRTUAL})
+    public String type;
+
+    @Param({"4", "32", "128"})
+    public int threads;
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomBeforeRowMapper rowMapper;
+    private TaskExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSource dataSource = BenchmarkFixtures.h2DataSource("executorBench");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        rowMapper = new CustomBeforeRowMapper();
+
+        jdbcTemplate.update("DELETE FROM BeforeEntity");
+        jdbcTemplate.update("ALTER TABLE BeforeEntity ALTER COLUMN id RESTART WITH 1");
+        List<Object[]> usernames = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            usernames.add(new Object[]{BenchmarkFixtures.username(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO BeforeEntity (username) VALUES (?)", usernames);
+
+        executor = BatchTaskExecutorConfig.createExecutor(type, "bench-", threads, PARTITIONS);
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.initialize(); // 빈이 아니므로 직접 초기화한다
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+            simple.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearWritten() {
+        jdbcTemplate.update("DELETE FROM AfterEntity");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void partitionedCopy() throws Exception {
+
+        long rangeSize = ROWS / PARTITIONS;
+        CountDownLatch latch = new CountDownLatch(PARTITIONS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int p = 0; p < PARTITIONS; p++) {
+            long minId = p * rangeSize + 1;
+            long maxId = (p + 1) * rangeSize;
+
+            executor.execute(() -> {
+                try {
+                    copyRange(minId, maxId);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException(failure.get());
+        }
+    }
+
+    // sixthPartitionReader -> sixthProcessor -> sixthWriter 와 같은 흐름 (페이지 단위)
+    private void copyRange(long minId, long maxId) throws InterruptedException {
+
+        long lastId = minId - 1;
+        while (true) {
+            List<BeforeEntity> page = jdbcTemplate.query(
+                    "SELECT id, username FROM BeforeEntity WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                    rowMapper, lastId, maxId, PAGE_SIZE);
+            Thread.sleep(ROUND_TRIP_MILLIS);
+
+            if (page.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> rows = new ArrayList<>(page.size());
+            for (BeforeEntity entity : page) {
+                rows.add(new Object[]{entity.getUsername()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO AfterEntity (username) VALUES (?)", rows);
+            Thread.sleep(ROUND_TRIP_MILLIS);
+
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+}
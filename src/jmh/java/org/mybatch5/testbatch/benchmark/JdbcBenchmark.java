@@ -0,0 +1,201 @@
+package org.mybatch5.testbatch.benchmark;
+
+import org.mybatch5.testbatch.entity.AfterEntity;
+import org.mybatch5.testbatch.entity.AfterEntityInsertSetter;
+import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.mybatch5.testbatch.entity.CustomBeforeRowMapper;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.entity.WinEntityInsertSetter;
+import org.mybatch5.testbatch.entity.WinRewardUpdateSetter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  JDBC 로 읽고 쓰는 부분의 속도 (MySQL 모드의 H2 메모리 DB)
+ *
+ *  customBeforeRowMapper - sixthJob 의 CustomBeforeRowMapper 로 BeforeEntity 테이블을 읽는다
+ *  afterJdbcWriter       - firstJob (writeMode=jdbc) 의 INSERT INTO AfterEntity
+ *  csvWriter             - csvReaderJob / excelReadJob 의 INSERT INTO WinEntity
+ *  seventhWriter         - seventhJob 의 UPDATE WinEntity SET reward WHERE id
+ *
+ *  beanProperty*Writer 는 같은 sql 을 :name 파라미터 + BeanPropertyItemSqlParameterSourceProvider 로 바인딩하는 이전 방식
+ *  (job 의 writer 는 ? + ItemPreparedStatementSetter) - gc 프로파일러의 gc.alloc.rate.norm 으로 행마다 할당량을 비교한다
+ *
+ *  writer 는 CHUNK_SIZE 건의 청크 하나를 쓰는 것이 한 번의 호출이다
+ *  H2 는 네트워크 왕복이 없기 때문에 MySQL 에서의 절대값이 아니라 매핑/바인딩 비용의 비교용이다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JdbcBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomBeforeRowMapper rowMapper;
+
+    private JdbcBatchItemWriter<AfterEntity> afterJdbcWriter;
+    private JdbcBatchItemWriter<WinEntity> csvWriter;
+    private JdbcBatchItemWriter<WinEntity> seventhWriter;
+    private JdbcBatchItemWriter<AfterEntity> beanPropertyAfterJdbcWriter;
+    private JdbcBatchItemWriter<WinEntity> beanPropertyCsvWriter;
+    private JdbcBatchItemWriter<WinEntity> beanPropertySeventhWriter;
+
+    private Chunk<AfterEntity> afterChunk;
+    private Chunk<WinEntity> winInsertChunk;
+    private Chunk<WinEntity> winUpdateChunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSource dataSource = BenchmarkFixtures.h2DataSource("jdbcBench");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        rowMapper = new CustomBeforeRowMapper();
+
+        // 읽기용 데이터
+        jdbcTemplate.update("DELETE FROM BeforeEntity");
+        List<Object[]> usernames = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            usernames.add(new Object[]{BenchmarkFixtures.username(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO BeforeEntity (username) VALUES (?)", usernames);
+
+        // 갱신용 데이터 (id 1 ~ CHUNK_SIZE)
+        jdbcTemplate.update("DELETE FROM WinEntity");
+        jdbcTemplate.update("ALTER TABLE WinEntity ALTER COLUMN id RESTART WITH 1");
+
+        // 각 job 과 같은 sql / 매핑
+        afterJdbcWriter = new JdbcBatchItemWriterBuilder<AfterEntity>()
+                .dataSource(dataSource)
+                .sql(AfterEntityInsertSetter.SQL)
+                .itemPreparedStatementSetter(new AfterEntityInsertSetter())
+                .build();
+        csvWriter = new JdbcBatchItemWriterBuilder<WinEntity>()
+                .dataSource(dataSource)
+                .sql(WinEntityInsertSetter.SQL)
+                .itemPreparedStatementSetter(new WinEntityInsertSetter())
+                .build();
+        seventhWriter = new JdbcBatchItemWriterBuilder<WinEntity>()
+                .dataSource(dataSource)
+                .sql(WinRewardUpdateSetter.SQL)
+                .itemPreparedStatementSetter(new WinRewardUpdateSetter())
+                .build();
+
+        // 이전 방식 (비교용)
+        beanPropertyAfterJdbcWriter = new JdbcBatchItemWriterBuilder<AfterEntity>()
+                .dataSource(dataSource)
+                .sql("INSERT INTO AfterEntity (username) VALUES (:username)")
+                .beanMapped()
+                .build();
+        beanPropertyCsvWriter = new JdbcBatchItemWriterBuilder<WinEntity>()
+                .dataSource(dataSource)
+                .sql("INSERT INTO WinEntity (username, win, reward) VALUES (:username, :win, :reward)")
+                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .build();
+        beanPropertySeventhWriter = new JdbcBatchItemWriterBuilder<WinEntity>()
+                .dataSource(dataSource)
+                .sql("UPDATE WinEntity SET reward = :reward WHERE id = :id")
+                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .build();
+
+        List<AfterEntity> afters = new ArrayList<>();
+        List<WinEntity> inserts = new ArrayList<>();
+        List<WinEntity> updates = new ArrayList<>();
+        for (int i = 1; i <= CHUNK_SIZE; i++) {
+            AfterEntity after = new AfterEntity();
+            after.setUsername(BenchmarkFixtures.username(i));
+            afters.add(after);
+
+            inserts.add(WinEntity.builder()
+                    .username(BenchmarkFixtures.username(i))
+                    .win(BenchmarkFixtures.win(i))
+                    .reward(BenchmarkFixtures.reward(i))
+                    .build());
+            updates.add(WinEntity.builder()
+                    .id((long) i)
+                    .reward(true)
+                    .build());
+        }
+        afterChunk = new Chunk<>(afters);
+        winInsertChunk = new Chunk<>(inserts);
+        winUpdateChunk = new Chunk<>(updates);
+
+        // seventhWriter 가 갱신할 행 (assertUpdates 를 통과하도록 미리 넣어둔다)
+        jdbcTemplate.batchUpdate("INSERT INTO WinEntity (username, win, reward) VALUES (?, 10, false)",
+                usernames.subList(0, CHUNK_SIZE));
+    }
+
+    // 쌓인 행이 다음 iteration 의 INSERT 속도에 영향을 주지 않도록 비운다
+    @Setup(Level.Iteration)
+    public void clearInserted() {
+        jdbcTemplate.update("DELETE FROM AfterEntity");
+        jdbcTemplate.update("DELETE FROM WinEntity WHERE id > ?", CHUNK_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void customBeforeRowMapper(Blackhole blackhole) {
+        jdbcTemplate.query("SELECT id, username FROM BeforeEntity", rs -> {
+            int rowNum = 0;
+            while (rs.next()) {
+                BeforeEntity entity = rowMapper.mapRow(rs, rowNum++);
+                blackhole.consume(entity);
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void afterJdbcWriter() throws Exception {
+        afterJdbcWriter.write(afterChunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void csvWriter() throws Exception {
+        csvWriter.write(winInsertChunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void seventhWriter() throws Exception {
+        seventhWriter.write(winUpdateChunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void beanPropertyAfterJdbcWriter() throws Exception {
+        beanPropertyAfterJdbcWriter.write(afterChunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void beanPropertyCsvWriter() throws Exception {
+        beanPropertyCsvWriter.write(winInsertChunk);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void beanPropertySeventhWriter() throws Exception {
+        beanPropertySeventhWriter.write(winUpdateChunk);
+    }
+}
@@ -0,0 +1,23 @@
+package org.mybatch5.testbatch.batch;
+
+/**
+ *  청크 크기 / 페이지 크기를 job 파라미터에서 받아오기 위한 SpEL 식
+ *
+ *  @JobScope 가 붙은 step, @StepScope 가 붙은 reader 의 @Value 에 사용한다
+ *      - 값이 job 이 실행될 때 결정(late binding)되므로 MainController 에서 실행할 때마다 데이터 양에 맞게 조절할 수 있다
+ *
+ *  CHUNK_SIZE
+ *      - job 파라미터 "chunkSize" -> 없으면 프로퍼티 batch.chunk-size -> 없으면 10
+ *
+ *  PAGE_SIZE
+ *      - job 파라미터 "pageSize" -> 없으면 청크 크기와 같은 값
+ *      - 페이지 크기와 청크 크기가 같아야 청크 하나를 쿼리 한 번으로 읽는다
+ */
+public final class BatchSizes {
+
+    public static final String CHUNK_SIZE = "#{jobParameters['chunkSize'] ?: ${batch.chunk-size:10}}";
+    public static final String PAGE_SIZE = "#{jobParameters['pageSize'] ?: jobParameters['chunkSize'] ?: ${batch.chunk-size:10}}";
+
+    private BatchSizes() {
+    }
+}
@@ -0,0 +1,93 @@
+package org.mybatch5.testbatch.batch;
+
+import org.mybatch5.testbatch.mapping.ColumnMapping;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.List;
+
+/**
+ *  CsvRangePartitioner 가 한 파티션에 묶은 여러 바이트 구간을 차례대로 읽는 reader
+ *
+ *  구간마다 MappedCsvItemReader 를 하나씩 열고, 구간이 끝나면 닫은 뒤 다음 구간을 연다
+ *      - 동시에 열려 있는 파일(매핑)은 하나뿐이다
+ *
+ *  체크포인트
+ *      - RANGE_INDEX_KEY : 지금 읽고 있는 구간 번호
+ *      - 구간 안의 위치는 구간의 MappedCsvItemReader 가 자신의 이름(Range.readerName)으로 저장한다
+ *      - 재시작하면 저장된 구간부터, 그 구간의 마지막 커밋 위치부터 이어서 읽는다 (앞의 구간은 다시 열지 않는다)
+ */
+public class CsvRangeListItemReader<T> implements ItemStreamReader<T> {
+
+    private final List<CsvRangePartitioner.Range> ranges;
+    private final ColumnMapping<T> mapping;
+    private final String RANGE_INDEX_KEY;
+    private boolean bindByHeader;
+
+    private ExecutionContext executionContext; // 다음 구간의 reader 를 열 때 사용한다 (step 의 ExecutionContext)
+    private int rangeIndex;
+    private MappedCsvItemReader<T> current;
+
+    public CsvRangeListItemReader(List<CsvRangePartitioner.Range> ranges, ColumnMapping<T> mapping, String name) {
+        this.ranges = ranges;
+        this.mapping = mapping;
+        this.RANGE_INDEX_KEY = name + ".range";
+    }
+
+    // MappedCsvItemReader.setBindByHeader 참고
+    public void setBindByHeader(boolean bindByHeader) {
+        this.bindByHeader = bindByHeader;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        this.executionContext = executionContext;
+        rangeIndex = executionContext.containsKey(RANGE_INDEX_KEY) ? executionContext.getInt(RANGE_INDEX_KEY) : 0;
+        openCurrent();
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (current != null) {
+            T item = current.read();
+            if (item != null) {
+                return item;
+            }
+
+            // 구간을 다 읽었으면 다음 구간으로
+            current.close();
+            current = null;
+            rangeIndex++;
+            openCurrent();
+        }
+        return null;
+    }
+
+    private void openCurrent() {
+        if (rangeIndex >= ranges.size()) {
+            return;
+        }
+
+        CsvRangePartitioner.Range range = ranges.get(rangeIndex);
+        current = new MappedCsvItemReader<>(range.file(), mapping, range.readerName(), range.startOffset(), range.endOffset());
+        current.setBindByHeader(bindByHeader);
+        current.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putInt(RANGE_INDEX_KEY, rangeIndex);
+        if (current != null) {
+            current.update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ *  csv 파일(또는 폴더 안의 모든 csv 파일)을 줄 경계에 맞춘 바이트 구간으로 나누는 Partitioner
+ *
+ *  모든 파일의 크기를 더해 gridSize 로 나눈 크기(최소 minPartitionBytes)마다 구간을 나눈다
+ *      - 각 파일의 첫 줄(헤더)은 구간에 포함하지 않는다 (worker 의 MappedCsvItemReader 가 헤더를 따로 읽는다)
+ *      - 구간의 경계는 목표 위치 다음의 줄바꿈 바로 뒤로 맞춘다 (경계를 찾을 때만 파일을 조금 읽는다)
+ *      - 작은 파일은 구간 하나가 되고, 큰 파일은 여러 구간으로 나뉜다
+ *
+ *  파티션 수는 gridSize 를 넘지 않는다
+ *      - 파일마다 구간이 최소 하나씩 생기므로 파일이 많은 폴더는 구간 수가 gridSize 보다 훨씬 많아질 수 있다
+ *        구간마다 파티션을 만들면 TaskExecutor 의 스레드 + 대기열을 넘는 파티션이 TaskRejectedException 으로 실패한다
+ *      - 그래서 구간들을 gridSize 개의 묶음으로 나누고 (지금까지 바이트 수가 가장 적은 묶음에 다음 구간을 넣는다)
+ *        worker 는 자기 묶음의 구간들을 CsvRangeListItemReader 로 차례대로 읽는다
+ *
+ *  각 파티션의 ExecutionContext (i = 0 .. RANGE_COUNT_KEY - 1)
+ *      - RANGE_COUNT_KEY        : 파티션이 읽을 구간 수
+ *      - FILE_PATH_KEY + ".i"    : 읽을 csv 파일 경로
+ *      - START_OFFSET_KEY + ".i" : 구간의 첫 줄이 시작하는 위치
+ *      - END_OFFSET_KEY + ".i"   : 구간 다음 줄이 시작하는 위치 (파일의 마지막 구간은 파일 크기)
+ *      - READER_NAME_KEY + ".i"  : 구간마다 다른 reader 이름 - MappedCsvItemReader 의 체크포인트 키 접두사로 사용한다
+ *      - ranges(context) 로 Range 목록을 다시 만든다
+ *
+ *  따옴표 안에 줄바꿈이 있는 csv 는 나눌 수 없다 (MappedCsvItemReader 도 지원하지 않는다)
+ */
+public class CsvRangePartitioner implements Partitioner {
+
+    public static final String FILE_PATH_KEY = "filePath";
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+    public static final String READER_NAME_KEY = "readerName";
+    public static final String RANGE_COUNT_KEY = "rangeCount";
+
+    public static final long DEFAULT_MIN_PARTITION_BYTES = 1024L * 1024; // 너무 작은 구간은 step 을 만드는 비용이 더 크다
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /**
+     *  파일 하나의 바이트 구간
+     *  readerName 은 "csvReader.file{파일 번호}-range{구간 번호}" - 구간마다 달라서 체크포인트 키가 겹치지 않는다
+     */
+    public record Range(Path file, long startOffset, long endOffset, String readerName) {
+
+        long size() {
+            return endOffset - startOffset;
+        }
+    }
+
+    private final Path input;
+    private final long minPartitionBytes;
+
+    public CsvRangePartitioner(Path input) {
+        this(input, DEFAULT_MIN_PARTITION_BYTES);
+    }
+
+    /**
+     *  input
+     *      - csv 파일이면 그 파일만, 폴더면 폴더 안의 *.csv 파일을 이름 순서로 나눈다
+     */
+    public CsvRangePartitioner(Path input, long minPartitionBytes) {
+        if (minPartitionBytes <= 0) {
+            throw new IllegalArgumentException("minPartitionBytes must be greater than 0: " + minPartitionBytes);
+        }
+        this.input = input;
+        this.minPartitionBytes = minPartitionBytes;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+
+        List<Range> ranges = new ArrayList<>();
+
+        try {
+            List<Path> files = listFiles();
+
+            long totalBytes = 0L;
+            for (Path file : files) {
+                totalBytes += Files.size(file);
+            }
+            long grid = Math.max(gridSize, 1);
+            long partitionBytes = Math.max(minPartitionBytes, (totalBytes + grid - 1) / grid);
+
+            for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+                splitFile(fileIndex, files.get(fileIndex), partitionBytes, ranges);
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to partition CSV input: " + input, e);
+        }
+
+        return group(ranges, Math.max(gridSize, 1));
+    }
+
+    // 구간들을 최대 gridSize 개의 파티션으로 묶는다 (바이트 수가 가장 적은 파티션에 다음 구간을 넣는다)
+    private static Map<String, ExecutionContext> group(List<Range> ranges, int gridSize) {
+
+        int partitionCount = Math.min(gridSize, ranges.size());
+        List<List<Range>> groups = new ArrayList<>(partitionCount);
+        long[] groupBytes = new long[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        for (Range range : ranges) {
+            int smallest = 0;
+            for (int i = 1; i < partitionCount; i++) {
+                if (groupBytes[i] < groupBytes[smallest]) {
+                    smallest = i;
+                }
+            }
+            groups.get(smallest).add(range);
+            groupBytes[smallest] += range.size();
+        }
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.put("partition" + i, toContext(groups.get(i)));
+        }
+        return partitions;
+    }
+
+    private static ExecutionContext toContext(List<Range> ranges) {
+        ExecutionContext context = new ExecutionContext();
+        context.putInt(RANGE_COUNT_KEY, ranges.size());
+
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            context.putString(FILE_PATH_KEY + "." + i, range.file().toString());
+            context.putLong(START_OFFSET_KEY + "." + i, range.startOffset());
+            context.putLong(END_OFFSET_KEY + "." + i, range.endOffset());
+            context.putString(READER_NAME_KEY + "." + i, range.readerName());
+        }
+        return context;
+    }
+
+    /**
+     *  partition() 이 만든 ExecutionContext 에서 구간 목록을 다시 만든다 (worker step 의 reader 에서 사용)
+     */
+    public static List<Range> ranges(ExecutionContext context) {
+        int count = context.getInt(RANGE_COUNT_KEY);
+
+        List<Range> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranges.add(new Range(
+                    Path.of(context.getString(FILE_PATH_KEY + "." + i)),
+                    context.getLong(START_OFFSET_KEY + "." + i),
+                    context.getLong(END_OFFSET_KEY + "." + i),
+                    context.getString(READER_NAME_KEY + "." + i)));
+        }
+        return ranges;
+    }
+
+    private List<Path> listFiles() throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(input);
+        }
+
+        try (Stream<Path> paths = Files.list(input)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void splitFile(int fileIndex, Path file, long partitionBytes, List<Range> ranges) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            long start = nextLineStart(channel, 0L, size); // 헤더 다음 줄
+            int range = 0;
+            while (start < size) {
+                long end = start + partitionBytes >= size ? size : nextLineStart(channel, start + partitionBytes - 1, size);
+                ranges.add(new Range(file, start, end, "csvReader.file" + fileIndex + "-range" + range++));
+                start = end;
+            }
+        }
+    }
+
+    // from 이후의 첫 줄바꿈 바로 뒤 위치 (줄바꿈이 없으면 파일 크기)
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -1,77 +1,93 @@
 package org.mybatch5.testbatch.batch;
 
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.entity.WinEntityInsertSetter;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
+import org.mybatch5.testbatch.mapping.EntityMappings;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 
 @Configuration
 public class CsvReaderBatch {
     /**
      *  csv 파일을 읽어서 데이터 베이스에 저장하는 배치
      */
+    private static final String CSV_FILE_PATH = "C:\\Users\\USER\\Desktop\\개발학습데이터\\csvreader.csv";
+
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final DataSource dataSource;
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+    private final TaskExecutor taskExecutor; // 파티션 worker 를 실행할 스레드 풀
 
-    public CsvReaderBatch(JobRepository jobRepository, PlatformTransactionManager platformTransactionManager, @Qualifier("dataDBSource") DataSource dataSource) {
+    public CsvReaderBatch(JobRepository jobRepository, @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager, @Qualifier("dataDBSource") DataSource dataSource, BatchMetricsListener batchMetricsListener,
+                          @Qualifier("batchTaskExecutor") TaskExecutor taskExecutor) {
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
         this.dataSource = dataSource;
+        this.batchMetricsListener = batchMetricsListener;
+        this.taskExecutor = taskExecutor;
     }
     
     // job 정의
     @Bean
     public Job csvReaderJob() {
         return new JobBuilder("csvReaderJob", jobRepository)
-                .start(csvReaderStep())
+                .start(csvReaderStep(null))
                 .build();
     }
     
     // step 정의
     @Bean
-    public Step csvReaderStep() {
-        return new StepBuilder("csvReaderStep", jobRepository)
-                .<WinEntity, WinEntity>chunk(10, platformTransactionManager)
+    @JobScope
+    public Step csvReaderStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+        return batchMetricsListener.applyTo(new StepBuilder("csvReaderStep", jobRepository)
+                .<WinEntity, WinEntity>chunk(chunkSize, platformTransactionManager)
                 .reader(csvReader())
                 .processor(csvProcessor())
-                .writer(csvWriter())
+                .writer(csvWriter()))
                 .build();
     }
     
     // reader 정의
         // csv 파일 읽기
+        // 파일을 메모리 맵으로 열고 바이트를 직접 나눠서, 열 순서(id,username,win,reward)대로 WinEntity 를 만든다 (첫 줄은 헤더라서 건너뛴다)
+        // 체크포인트는 바이트 위치라서 재시작하면 앞의 줄들을 다시 읽지 않고 바로 이동한다 (MappedCsvItemReader 참고)
     @Bean
-    public FlatFileItemReader<WinEntity> csvReader() {
+    public ItemStreamReader<WinEntity> csvReader() {
         // csv 파일 읽기
-        return new FlatFileItemReaderBuilder<WinEntity>()
-                .name("csvReader")
+//        FlatFileItemReader 를 사용하는 경우 (행마다 String / FieldSet 을 만든다)
+//        MappedFieldSetMapper<WinEntity> mapper = new MappedFieldSetMapper<>(EntityMappings.WIN_ENTITY);
+//        return new FlatFileItemReaderBuilder<WinEntity>()
+//                .name("csvReader")
 //                .resource(new ClassPathResource("C:\\Users\\USER\\Desktop\\개발학습데이터\\csvreader.csv")) // 파일이 src/main/resources/csvreader.csv 아래에 있는 경우
-                .resource(new FileSystemResource("C:\\Users\\USER\\Desktop\\개발학습데이터\\csvreader.csv")) // 파일이 로컬 파일 시스템인 경우
-                .delimited()
-                .names("id", "username", "win", "reward") // 헤더 컬럼명 지정
-                .linesToSkip(1) // 첫 번째 행 스킵 (컴럼명 행)
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<WinEntity>() {{
-                    setTargetType(WinEntity.class);
-                }})
-                .build();
+//                .resource(new FileSystemResource(CSV_FILE_PATH))
+//                .lineTokenizer(new DelimitedLineTokenizer())
+//                .linesToSkip(1)
+//                .skippedLinesCallback(mapper)
+//                .fieldSetMapper(mapper)
+//                .build();
+        return new MappedCsvItemReader<>(Path.of(CSV_FILE_PATH), // 파일이 로컬 파일 시스템인 경우
+                EntityMappings.WIN_ENTITY, "csvReader");
     }
 
     // processor 정의
@@ -92,12 +108,11 @@ public class CsvReaderBatch {
     @Bean
     public JdbcBatchItemWriter<WinEntity> csvWriter() {
 
-        String sql = "INSERT INTO WinEntity (username, win, reward) VALUES (:username, :win, :reward)";
         return new JdbcBatchItemWriterBuilder<WinEntity>()
                 .dataSource(dataSource)
-                .sql(sql)
+                .sql(WinEntityInsertSetter.SQL) // INSERT INTO WinEntity (username, win, reward) VALUES (?, ?, ?)
 //                .beanMapped() // BeanPropertyItemSqlParameterSourceProvider 사용
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .itemPreparedStatementSetter(new WinEntityInsertSetter()) // ? 위치에 직접 값을 넣는다 (리플렉션 없음)
                 .build();
     }
     /**
@@ -117,6 +132,11 @@ public class CsvReaderBatch {
      *      - 필요시 커스텀할 수 있다. (속성 이름 변환, 추가 로직 등)
      *
      *  결과적으로는 동일한 결과를 얻을 수 있지만, provider 을 명시적으로 사용하면 커스텀이 가능하다
+     *
+     *  itemPreparedStatementSetter(new WinEntityInsertSetter())   (지금 사용하는 방식)
+     *      - 위의 두 방식은 행마다 SqlParameterSource 객체를 만들고 리플렉션으로 getter 를 찾는다
+     *      - ItemPreparedStatementSetter 는 sql 의 ? 위치에 ps.setString(1, ...) 처럼 직접 값을 넣기 때문에
+     *        행마다 만드는 객체도, 리플렉션도 없다
      */
 
     // 커스텀 로직
@@ -134,4 +154,68 @@ public class CsvReaderBatch {
 //                })
 //                .build();
 //    }
+
+    /**
+     *  ===== 파티셔닝 버전 =====
+     *  csvReaderStep 은 파일 하나를 하나의 스레드에서 읽는다
+     *  csvPartitionJob 은 CsvRangePartitioner 로 csv 파일(또는 폴더 안의 모든 csv 파일)을 줄 경계에 맞춘 바이트 구간으로 나누고
+     *  각 구간을 worker step 으로 만들어 batchTaskExecutor 에서 동시에 읽고 WinEntity 에 INSERT 한다
+     *
+     *  input
+     *      - job 파라미터 "input" 으로 전달 (파일 또는 폴더, 없으면 csvReader 와 같은 파일)
+     *  gridSize
+     *      - job 파라미터 "gridSize" 로 전달 (없으면 4) - 전체 크기를 gridSize 로 나눈 크기마다 구간을 나눈다
+     *      - 파티션은 최대 gridSize 개이고, 파일이 많으면 한 파티션이 여러 구간을 차례대로 읽는다
+     *        (파일 수만큼 파티션을 만들면 batchTaskExecutor 의 스레드 + 대기열을 넘어서 TaskRejectedException 으로 실패한다)
+     *      - 동시에 실행되는 worker 수는 batchTaskExecutor 의 스레드 수(batch.executor.pool-size)로 제한된다
+     *
+     *  각 worker 는 자신의 StepExecution 에 구간 번호("csvReader.range")와 구간별 체크포인트 키("csvReader.file0-range1.offset")를 저장하므로
+     *  재시작하면 실패한 파티션만 마지막 커밋 위치부터 다시 실행된다
+     */
+    @Bean
+    public Job csvPartitionJob() {
+        return new JobBuilder("csvPartitionJob", jobRepository)
+                .start(csvPartitionStep(null, null))
+                .build();
+    }
+
+    // manager step 정의
+    @Bean
+    @JobScope
+    public Step csvPartitionStep(@Value("#{jobParameters['gridSize'] ?: 4}") Integer gridSize,
+                                 @Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+        return new StepBuilder("csvPartitionStep", jobRepository)
+                .partitioner("csvReaderStep", csvRangePartitioner(null)) // worker step 이름, 바이트 구간을 나눌 partitioner
+                .step(csvWorkerStep(chunkSize)) // 각 파티션에서 실행할 step
+                .gridSize(gridSize)         // 파티션 수
+                .taskExecutor(taskExecutor) // 파티션을 동시에 실행할 스레드 풀
+                .build();
+    }
+
+    // partitioner 정의
+    @Bean
+    @JobScope
+    public CsvRangePartitioner csvRangePartitioner(@Value("#{jobParameters['input']}") String input) {
+        return new CsvRangePartitioner(Path.of(input != null ? input : CSV_FILE_PATH));
+    }
+
+    // worker step 정의 - manager step 이 결정한 chunkSize 로 직접 생성한다 (SixthBatch 의 worker 와 같은 방식)
+    private Step csvWorkerStep(int chunkSize) {
+        return batchMetricsListener.applyTo(new StepBuilder("csvReaderStep", jobRepository)
+                .<WinEntity, WinEntity>chunk(chunkSize, platformTransactionManager)
+                .reader(csvPartitionReader(null))
+                .processor(csvProcessor())
+                .writer(csvWriter()))
+                .build();
+    }
+
+    // worker reader 정의 - CsvRangePartitioner 가 파티션의 ExecutionContext 에 넣어준 구간들을 차례대로 읽는다
+    @Bean
+    @StepScope
+    public CsvRangeListItemReader<WinEntity> csvPartitionReader(@Value("#{stepExecution}") StepExecution stepExecution) {
+        return new CsvRangeListItemReader<>(
+                CsvRangePartitioner.ranges(stepExecution.getExecutionContext()),
+                EntityMappings.WIN_ENTITY,
+                "csvReader");
+    }
 }
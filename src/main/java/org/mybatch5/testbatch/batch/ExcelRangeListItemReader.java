@@ -0,0 +1,128 @@
+package org.mybatch5.testbatch.batch;
+
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ *  ExcelSheetPartitioner 가 한 파티션에 묶은 여러 시트 / 행 구간을 차례대로 읽는 reader
+ *
+ *  구간마다 ExcelReader 를 하나씩 열고, 구간이 끝나면 닫은 뒤 다음 구간을 연다
+ *      - 동시에 열려 있는 엑셀 파일(OPCPackage)은 하나뿐이다
+ *      - 진행 로그(afterChunk)는 지금 읽고 있는 구간의 ExcelReader 에 넘긴다
+ *
+ *  체크포인트
+ *      - RANGE_INDEX_KEY : 지금 읽고 있는 구간 번호
+ *      - 구간 안의 위치는 구간의 ExcelReader 가 자신의 이름(Range.readerName)으로 저장한다
+ *      - 재시작하면 저장된 구간부터, 그 구간의 마지막 커밋 위치부터 이어서 읽는다 (앞의 구간은 다시 열지 않는다)
+ */
+public class ExcelRangeListItemReader implements ItemStreamReader<WinEntity>, ChunkListener {
+
+    private final String filePath;
+    private final List<ExcelSheetPartitioner.Range> ranges;
+    private final String RANGE_INDEX_KEY;
+
+    private long progressIntervalMillis = -1L; // 0 보다 작으면 ExcelReader 의 기본값을 사용한다
+    private boolean rejectInvalidRows;
+    private boolean bindByHeader;
+
+    private ExecutionContext executionContext; // 다음 구간의 reader 를 열 때 사용한다 (step 의 ExecutionContext)
+    private int rangeIndex;
+    private ExcelReader current;
+
+    public ExcelRangeListItemReader(String filePath, List<ExcelSheetPartitioner.Range> ranges, String name) {
+        this.filePath = filePath;
+        this.ranges = ranges;
+        this.RANGE_INDEX_KEY = name + ".range";
+    }
+
+    // ExcelReader.setProgressIntervalMillis 참고
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    // ExcelReader.setRejectInvalidRows 참고
+    public void setRejectInvalidRows(boolean rejectInvalidRows) {
+        this.rejectInvalidRows = rejectInvalidRows;
+    }
+
+    // ExcelReader.setBindByHeader 참고
+    public void setBindByHeader(boolean bindByHeader) {
+        this.bindByHeader = bindByHeader;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        this.executionContext = executionContext;
+        rangeIndex = executionContext.containsKey(RANGE_INDEX_KEY) ? executionContext.getInt(RANGE_INDEX_KEY) : 0;
+        openCurrent();
+    }
+
+    @Override
+    public WinEntity read() throws Exception {
+        while (current != null) {
+            WinEntity item = current.read();
+            if (item != null) {
+                return item;
+            }
+
+            // 구간을 다 읽었으면 다음 구간으로
+            current.close();
+            current = null;
+            rangeIndex++;
+            openCurrent();
+        }
+        return null;
+    }
+
+    private void openCurrent() {
+        if (rangeIndex >= ranges.size()) {
+            return;
+        }
+
+        ExcelSheetPartitioner.Range range = ranges.get(rangeIndex);
+        ExcelReader reader;
+        try {
+            reader = new ExcelReader(filePath, range.sheetIndex(), range.startOffset(),
+                    range.startRow(), range.endRow(), range.readerName());
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open EXCEL FILE", e);
+        }
+        if (progressIntervalMillis >= 0) {
+            reader.setProgressIntervalMillis(progressIntervalMillis);
+        }
+        reader.setRejectInvalidRows(rejectInvalidRows);
+        reader.setBindByHeader(bindByHeader);
+        reader.open(executionContext);
+        current = reader;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putInt(RANGE_INDEX_KEY, rangeIndex);
+        if (current != null) {
+            current.update(executionContext);
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        if (current != null) {
+            current.afterChunk(context);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
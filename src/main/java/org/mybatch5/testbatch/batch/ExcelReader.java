@@ -1,111 +1,200 @@
 package org.mybatch5.testbatch.batch;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.mapping.ColumnMapper;
+import org.mybatch5.testbatch.mapping.EntityMappings;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.item.*;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Iterator;
 
+/**
+ *  엑셀 시트를 읽어 WinEntity 로 변환하는 reader
+ *
+ *  진행 상황 로그
+ *      - 행마다 로그를 남기지 않는다 (행 처리 경로에서는 건너뛴 이유별 건수만 센다)
+ *      - ChunkListener 로 step 에 자동 등록되어, 청크가 끝났을 때 마지막 로그 후 progressIntervalMillis 가 지났으면
+ *        현재 행 번호, 읽은/쓴 건수, 구간 처리량(rows/s), 건너뛴 이유별 건수를 한 줄로 남긴다
+ *      - 건너뛴 건수는 ExecutionContext 에도 저장되어 재시작해도 이어서 센다
+ *
+ *  열 매핑
+ *      - 기본은 EntityMappings.WIN_ENTITY 에 정의한 순서대로 0 번(id), 1 번(username), 2 번(win), 3 번(reward) 셀을 읽는다
+ *        (헤더의 내용은 보지 않는다)
+ *      - setBindByHeader(true) 이면 open() 에서 시트의 0 번 행(헤더)을 읽어 이름으로 열 번호를 정한다
+ *        (파티션 worker 처럼 중간 위치부터 읽는 경우에도 같은 streamer 가 건너뛴 앞부분에서 읽는다 - XlsxSheetStreamer.readFirstRow)
+ *      - 셀 타입이 맞지 않는 값은 없는 것으로 본다 (username 은 문자열, win 은 숫자, reward 는 boolean 셀 - ExcelRow.accepts)
+ *      - 행마다 ColumnMapper 가 정해진 열 번호로 값을 꺼내 setter 를 호출한다
+ */
 @Slf4j
-public class ExcelReader implements ItemStreamReader<WinEntity> {
+public class ExcelReader implements ItemStreamReader<WinEntity>, ChunkListener {
 
-    private final String filePath;           // excel 파일 경로
-    private FileInputStream fileInputStream; // 엑셀 파일을 열기 위한 InputStream
-    private Workbook workbook;              // 엑셀 파일을 열고 엑셀파일 전체를 저장할 객체
+    // 행을 건너뛴 이유
+    public enum SkipReason {
+        EMPTY_ROW,      // 빈 행
+        MISSING_DATA    // username / win / reward 중 값이 없거나 변환할 수 없는 셀이 있는 행
+    }
 
+    private static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 10_000L;
+
+    private final String filePath;           // excel 파일 경로
+    private final int sheetIndex;            // 읽을 시트 번호
+    private final long startOffset;          // 처음 열 때 이동할 시트 xml 위치 (0 이면 시트의 처음)
+    private final int startRow;              // 읽기 시작할 행 번호 (1 이면 헤더 스킵)
+    private final int endRow;                // 마지막으로 읽을 행 번호 (포함)
+    private XlsxSheetStreamer streamer;      // 엑셀 시트를 한 행씩 읽는 객체 (엑셀파일 전체를 메모리에 올리지 않음)
+    private ColumnMapper<WinEntity> mapper;  // 헤더로 열 번호가 정해진 매핑 (open() 에서 만든다)
 
-    private Sheet sheet; // Iterator 대신 Sheet 직접 사용
-    private Iterator<Row> rowCursor;            // 액셀의 각각의 행을 반복할 객체
     private int currentRowNum;          // 읽을 행 인덱스 번호: 0인 경우 처음부터, 1인 경우 헤더 스킵
-    private final String CURRENT_ROW_KEY = "readExcel.current.row.number"; // 메타데이터 테이블에 기록한 값
+    private long currentOffset;         // 마지막으로 처리한 행이 끝나는 시트 xml 위치
+    private final String CURRENT_ROW_KEY;    // 메타데이터 테이블에 기록한 값 ("readExcel.current.row.number")
+    private final String CURRENT_OFFSET_KEY; // 재시작 시 바로 이동할 시트 xml 위치 ("readExcel.current.row.offset")
+    private final String name;               // 체크포인트 / 진행 로그에 사용하는 이름
+
+    private final long[] skipCounts = new long[SkipReason.values().length]; // 건너뛴 이유별 건수
+    private long progressIntervalMillis = DEFAULT_PROGRESS_INTERVAL_MILLIS;
+    private boolean rejectInvalidRows;  // 값이 잘못된 행을 RejectedRowException 으로 알릴지 여부 (기본: 조용히 건너뜀)
+    private boolean bindByHeader;       // 헤더 행의 이름으로 열 번호를 정할지 여부 (기본: 정의한 순서)
+    private long lastReportNanos;       // 마지막으로 진행 로그를 남긴 시각
+    private long lastReportReadCount;   // 마지막으로 진행 로그를 남길 때의 읽은 건수
 
     // ======= 생성자 ======= //
     public ExcelReader(String filePath) throws IOException {
+        this(filePath, 0, 0L, 1, Integer.MAX_VALUE, "readExcel");
+    }
+
+    /**
+     *  시트 / 행 구간을 지정해서 읽는다 (ExcelSheetPartitioner 의 구간 하나 - ExcelRangeListItemReader 가 구간마다 만든다)
+     *
+     *  name
+     *      - 체크포인트 키의 접두사 ("<name>.current.row.number", "<name>.current.row.offset")
+     *      - 파티션마다 다른 이름을 주어 각자의 체크포인트를 가진다
+     */
+    public ExcelReader(String filePath, int sheetIndex, long startOffset, int startRow, int endRow, String name) throws IOException {
         this.filePath = filePath;
-        this.currentRowNum = 1;
+        this.sheetIndex = sheetIndex;
+        this.startOffset = startOffset;
+        this.startRow = startRow;
+        this.endRow = endRow;
+        this.currentRowNum = startRow;
+        this.currentOffset = startOffset;
+        this.CURRENT_ROW_KEY = name + ".current.row.number";
+        this.CURRENT_OFFSET_KEY = name + ".current.row.offset";
+        this.name = name;
+    }
+
+    // 진행 로그 간격 (0 이하면 진행 로그를 남기지 않는다)
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     *  true 인 경우 값이 없거나 변환할 수 없는 행을 건너뛰지 않고 RejectedRowException 을 던진다
+     *  step 에서 faultTolerant().skip(RejectedRowException.class) 로 받아서 reject 파일에 기록한다
+     *  (빈 행은 데이터 오류가 아니므로 계속 조용히 건너뛴다)
+     */
+    public void setRejectInvalidRows(boolean rejectInvalidRows) {
+        this.rejectInvalidRows = rejectInvalidRows;
+    }
+
+    // true 이면 헤더 행의 이름으로 열 번호를 정한다 (헤더 이름이 매핑과 다르면 open() 에서 실패한다)
+    public void setBindByHeader(boolean bindByHeader) {
+        this.bindByHeader = bindByHeader;
+    }
+
+    private String skipCountKey(SkipReason reason) {
+        return name + ".skipped." + reason.name().toLowerCase();
     }
 
     // ======= 열기 ======= //
     @Override
     public void open(ExecutionContext executionContext) throws ItemStreamException {
         try {
-            fileInputStream = new FileInputStream(filePath);
-            workbook = WorkbookFactory.create(fileInputStream);
-            sheet = workbook.getSheetAt(0);
-
-            if (sheet == null) {
-                throw new ItemStreamException("No sheets found in Excel file: " + filePath);
-            }
-
-            this.rowCursor = sheet.iterator();
-            if (!rowCursor.hasNext()) {
-                log.warn("Excel sheet is empty: " + filePath);
-            } else {
-                log.info("Excel sheet initialized with row count: {}", sheet.getLastRowNum() + 1);
-            }
-            
+            currentRowNum = startRow;
             if (executionContext.containsKey(CURRENT_ROW_KEY)) { // 기존에 읽던 곳이 있는 경우
-                log.info("Resuming from row: {}", currentRowNum);
                 this.currentRowNum = executionContext.getInt(CURRENT_ROW_KEY);
-                // 위의 값을 가져와 이미 실행한 부분은 건너 뜀
-                for (int i = 0; i < currentRowNum && rowCursor.hasNext(); i++) {
-                    rowCursor.next();
-                }
+                log.info("Resuming from row: {}", currentRowNum);
+            }
+
+            for (SkipReason reason : SkipReason.values()) {
+                skipCounts[reason.ordinal()] = executionContext.getLong(skipCountKey(reason), 0L);
             }
+            lastReportNanos = System.nanoTime();
+            lastReportReadCount = 0L;
+
+            // 저장된 위치가 있으면 앞의 행들을 다시 읽지 않고 해당 위치로 바로 이동한다
+            long offset = executionContext.getLong(CURRENT_OFFSET_KEY, -1L);
+            currentOffset = offset >= 0 ? offset : startOffset;
+            streamer = new XlsxSheetStreamer(filePath, sheetIndex, currentOffset);
+            log.info("Excel sheet opened: {} (offset: {})", filePath, streamer.getPosition());
+
+            mapper = bindByHeader ? EntityMappings.WIN_ENTITY.bind(readHeader()) : EntityMappings.WIN_ENTITY.bindPositions();
 
         } catch (Exception e) {
             throw new ItemStreamException(e);
         }
     }
 
+    // 시트의 0 번 행 (헤더) - 처음부터 읽는 경우에는 헤더 행을 여기서 읽고, read() 는 다음 행부터 읽는다
+    private String[] readHeader() throws IOException {
+        ExcelRow header = streamer.readFirstRow();
+        if (header == null || header.getRowNum() != 0) {
+            throw new IllegalStateException("Header row not found in sheet " + sheetIndex + ": " + filePath);
+        }
+
+        String[] names = new String[header.getLastCellNum()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = header.getStringValue(i);
+        }
+        return names;
+    }
 
     // ======= 읽기 ======= //
     @Override
     public WinEntity read() throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
-        if (sheet == null) {
-            log.warn("Sheet is null, cannot read rows");
+        if (streamer == null) {
+            log.warn("Sheet is not opened, cannot read rows");
             return null;
         }
 
         // 마지막 행까지 순회
-        while (currentRowNum <= sheet.getLastRowNum()) {
-            Row row = sheet.getRow(currentRowNum);
-            currentRowNum++;
+        ExcelRow row;
+        while ((row = streamer.nextRow()) != null) {
+            // 이미 읽은 행(헤더 포함)은 건너뛴다 - 저장된 위치로 이동한 경우에는 해당되지 않는다
+            if (row.getRowNum() < currentRowNum) {
+                continue;
+            }
+            // 구간의 끝 - 다음 구간의 첫 행은 처리한 것으로 기록하지 않는다
+            if (row.getRowNum() > endRow) {
+                break;
+            }
+            currentRowNum = row.getRowNum() + 1;
+            currentOffset = streamer.getPosition();
 
             // 빈 행 체크
-            if (row == null || isRowEmpty(row)) {
-                log.info("Skipping empty row at index: {}", currentRowNum - 1);
+            if (row.isEmpty()) {
+                skipCounts[SkipReason.EMPTY_ROW.ordinal()]++;
                 continue;
             }
 
-            // 셀 값 읽기
-            String username = row.getCell(1) != null && row.getCell(1).getCellType() == CellType.STRING
-                    ? row.getCell(1).getStringCellValue() : null;
-            Long win = row.getCell(2) != null && row.getCell(2).getCellType() == CellType.NUMERIC
-                    ? (long) row.getCell(2).getNumericCellValue() : null;
-            Boolean reward = row.getCell(3) != null && row.getCell(3).getCellType() == CellType.BOOLEAN
-                    ? row.getCell(3).getBooleanCellValue() : null;
-
-            // 필수 값이 없으면 건너뛰기
-            if (username == null || win == null || reward == null) {
-                log.info("Skipping row with missing data at index: {}", currentRowNum - 1);
+            // open() 에서 정한 열 번호로 값을 꺼내 WinEntity 를 만든다
+            WinEntity entity = mapper.map(row);
+
+            // 필수 값이 없으면 건너뛰기 (rejectInvalidRows 인 경우 skip 처리를 위해 예외를 던진다)
+            if (entity == null) {
+                skipCounts[SkipReason.MISSING_DATA.ordinal()]++;
+                if (rejectInvalidRows) {
+                    throw new RejectedRowException("sheet" + sheetIndex, row.getRowNum(), SkipReason.MISSING_DATA,
+                            mapper.describeInvalid(row), mapper.rawValues(row));
+                }
                 continue;
             }
 
-            WinEntity entity = WinEntity.builder()
-                    .username(username)
-                    .win(win)
-                    .reward(reward)
-                    .build();
-            log.info("Read entity at row {}: {}", currentRowNum - 1, entity);
             return entity;
         }
 
-        log.info("Reached end of sheet at row: {}", currentRowNum);
         return null;
 //        if (rowCursor == null) {
 //            log.warn("rowCursor is null, cannot read rows");
@@ -133,38 +222,55 @@ public class ExcelReader implements ItemStreamReader<WinEntity> {
 //        return entity;
     }
 
-    // 빈 행 체크 헬퍼 메서드
-    private boolean isRowEmpty(Row row) {
-        if (row == null) return true;
-        for (int i = row.getFirstCellNum(); i < row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-
     // ======= 진행상황 저장 ======= //
     @Override
     public void update(ExecutionContext executionContext) throws ItemStreamException {
         executionContext.putInt(CURRENT_ROW_KEY, currentRowNum);
+        executionContext.putLong(CURRENT_OFFSET_KEY, currentOffset);
+        for (SkipReason reason : SkipReason.values()) {
+            executionContext.putLong(skipCountKey(reason), skipCounts[reason.ordinal()]);
+        }
+    }
+
+    // ======= 진행 로그 ======= //
+    @Override
+    public void afterChunk(ChunkContext context) {
+        if (progressIntervalMillis <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastReportNanos;
+        if (elapsedNanos < progressIntervalMillis * 1_000_000L) {
+            return;
+        }
+
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        long readCount = stepExecution.getReadCount();
+        double rowsPerSecond = (readCount - lastReportReadCount) * 1_000_000_000.0 / elapsedNanos;
+
+        log.info("[{}] row={} read={} written={} rate={} rows/s skipped(empty={}, missingData={})",
+                name, currentRowNum, readCount, stepExecution.getWriteCount(), String.format("%.1f", rowsPerSecond),
+                skipCounts[SkipReason.EMPTY_ROW.ordinal()], skipCounts[SkipReason.MISSING_DATA.ordinal()]);
+
+        lastReportNanos = now;
+        lastReportReadCount = readCount;
     }
 
     // ======= 닫기 ======= //
     @Override
     public void close() throws ItemStreamException {
         try {
-            if (workbook != null) {
-                // 자원 해 (작업이 종료된 workbook(액셀) 을 닫아 리소스를 해제한다
-                workbook.close(); // 이미 읽어들인 엑셀 객체의 리소스를 해제 이후에 더 이상 참조하지 않을 경우 GC가 알아서 없앰
-            }
-            if (fileInputStream != null) {
-                fileInputStream.close(); // 파일을 읽는 inputStream 을 해제한다
+            if (streamer != null) {
+                log.info("[{}] finished at row={} skipped(empty={}, missingData={})",
+                        name, currentRowNum,
+                        skipCounts[SkipReason.EMPTY_ROW.ordinal()], skipCounts[SkipReason.MISSING_DATA.ordinal()]);
+                streamer.close(); // 열려있는 엑셀 파일(zip)과 시트 스트림을 닫는다
             }
         } catch (IOException e) {
             throw new ItemStreamException(e);
+        } finally {
+            streamer = null;
         }
     }
 }
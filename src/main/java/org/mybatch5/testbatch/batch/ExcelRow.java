@@ -0,0 +1,105 @@
+package org.mybatch5.testbatch.batch;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.mybatch5.testbatch.mapping.ColumnType;
+import org.mybatch5.testbatch.mapping.ColumnValues;
+
+/**
+ *  스트리밍 방식으로 읽은 엑셀의 한 행
+ *
+ *  POI 의 Row 는 Workbook/Sheet 전체가 메모리에 올라와 있어야 만들 수 있기 때문에
+ *  XlsxSheetStreamer 는 행을 읽을 때마다 이 가벼운 객체를 새로 만들어 반환한다
+ *  (청크 처리가 끝나면 GC 대상이 되므로 파일 크기와 상관없이 힙 사용량이 일정하다)
+ *
+ *  rowNum
+ *      - 0 부터 시작하는 행 인덱스 (엑셀의 r="1" 이 0)
+ *
+ *  types / values
+ *      - 셀 인덱스 별 타입과 값 (공유 문자열은 이미 실제 문자열로 풀려 있다)
+ *      - 수식 셀은 캐시된 결과값의 타입으로 기록된다
+ *
+ *  ColumnValues 를 구현해서 ColumnMapper.map(row) 에 그대로 넘길 수 있다
+ */
+public class ExcelRow implements ColumnValues {
+
+    private final int rowNum;
+    private final CellType[] types;
+    private final String[] values;
+
+    public ExcelRow(int rowNum, CellType[] types, String[] values) {
+        this.rowNum = rowNum;
+        this.types = types;
+        this.values = values;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    // 마지막 셀 인덱스 + 1 (POI Row.getLastCellNum() 과 같은 의미)
+    public int getLastCellNum() {
+        return values.length;
+    }
+
+    // 셀이 없으면 BLANK
+    public CellType getCellType(int column) {
+        if (column < 0 || column >= types.length || types[column] == null) {
+            return CellType.BLANK;
+        }
+        return types[column];
+    }
+
+    // 셀의 원본 문자열 값 (없으면 null)
+    public String getStringValue(int column) {
+        if (column < 0 || column >= values.length) {
+            return null;
+        }
+        return values[column];
+    }
+
+    @Override
+    public String get(int index) {
+        return getStringValue(index);
+    }
+
+    // 셀 타입이 열의 타입과 맞는지 (숫자 셀의 username, 문자열 셀의 win / reward 는 값이 없는 것으로 본다)
+    @Override
+    public boolean accepts(int index, ColumnType<?> type) {
+        CellType cellType = getCellType(index);
+        if (type == ColumnType.STRING) {
+            return cellType == CellType.STRING;
+        }
+        if (type == ColumnType.LONG) {
+            return cellType == CellType.NUMERIC;
+        }
+        if (type == ColumnType.BOOLEAN) {
+            return cellType == CellType.BOOLEAN;
+        }
+        return true;
+    }
+
+    // 셀이 없거나 비어있으면 0 (POI 의 BLANK 셀 getNumericCellValue() 와 같다), 숫자가 아니면 NumberFormatException
+    public double getNumericValue(int column) {
+        String value = getStringValue(column);
+        if (value == null || value.isEmpty()) {
+            return 0.0;
+        }
+        return Double.parseDouble(value);
+    }
+
+    // 셀이 없거나 비어있으면 false (POI 의 BLANK 셀 getBooleanCellValue() 와 같다)
+    public boolean getBooleanValue(int column) {
+        String value = getStringValue(column);
+        return "1".equals(value) || "true".equalsIgnoreCase(value);
+    }
+
+    // 모든 셀이 비어있는지 확인
+    public boolean isEmpty() {
+        for (int i = 0; i < types.length; i++) {
+            if (getCellType(i) != CellType.BLANK) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,27 +3,91 @@ package org.mybatch5.testbatch.batch;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamWriter;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
-public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity> {
+public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity>, StepExecutionListener {
+
+    /**
+     *  rowAccessWindowSize
+     *      - 0 이하인 경우 XSSFWorkbook 을 사용한다. 모든 행이 close() 까지 메모리에 남는다
+     *      - 0 보다 큰 경우 SXSSFWorkbook(스트리밍 모드)을 사용한다
+     *        메모리에는 마지막 rowAccessWindowSize 개의 행만 남기고, 나머지 행은 임시 파일로 내려 쓴다
+     *        테이블 크기와 상관없이 일정한 메모리로 엑셀을 만들 수 있다
+     *
+     *  compressTempFiles
+     *      - 스트리밍 모드에서 임시 파일을 gzip 으로 압축할지 여부
+     *      - 임시 파일은 압축되지 않은 시트 xml 이라 행 수가 많으면 디스크를 많이 사용한다 (대신 CPU 를 조금 더 쓴다)
+     *
+     *  restartable (재시작 가능 모드)
+     *      - xlsx 는 zip 파일이라 청크마다 이어 쓸 수 없다
+     *      - 그래서 청크 단위로 행을 "filePath.part" 저널 파일에 이어 쓰고, update() 에서 디스크에 강제로 반영(force)한 뒤
+     *        기록한 행 수(WRITTEN_ROW_KEY)와 저널 크기(JOURNAL_SIZE_KEY)를 ExecutionContext 에 저장한다
+     *      - 재시작 시 저널을 마지막으로 커밋된 크기로 잘라내고(커밋되지 않은 청크 제거) 그 뒤부터 이어서 쓴다
+     *      - step 이 COMPLETED 로 끝난 경우에만 afterStep() 에서 저널을 읽어 xlsx 를 만들고 저널을 삭제한다
+     *        (실패한 경우에는 저널을 남겨두어 재시작에 사용한다)
+     *
+     *  xlsx 파일은 close() 가 아니라 afterStep() 에서 만든다
+     *      - close() 는 step 이 COMPLETED 로 저장된 뒤에 호출되고, 여기서 발생한 예외는 로그로만 남는다
+     *        (파일을 만들지 못해도 job 이 COMPLETED 로 끝나고 재시작할 수도 없다)
+     *      - afterStep() 에서 실패하면 step 을 FAILED 로 바꾸므로 재시작하면 남아있는 저널로 xlsx 를 다시 만든다
+     *      - 저널은 xlsx 파일을 만든 뒤에만 삭제한다
+     */
+    private static final int DEFAULT_WINDOW_SIZE = 100;
+    private final String WRITTEN_ROW_KEY = "excel.written.row.number";  // 메타데이터 테이블에 기록한 값
+    private final String JOURNAL_SIZE_KEY = "excel.journal.size";       // 커밋된 저널 파일의 크기
 
     private final String filePath;
+    private final int rowAccessWindowSize;
+    private final boolean compressTempFiles;
+    private final boolean restartable;
     private Workbook workbook;
     private Sheet sheet;
     private int currentRowNumber;
     private boolean isClosed;
 
+    private FileChannel journalChannel;
+    private DataOutputStream journalOut;
+    private boolean outputWritten;  // afterStep() 에서 xlsx 파일을 만들었는지 여부
+
     public ExcelRowWriter(String filePath) throws IOException {
+        this(filePath, 0, false);
+    }
+
+    public ExcelRowWriter(String filePath, int rowAccessWindowSize, boolean compressTempFiles) throws IOException {
+        this(filePath, rowAccessWindowSize, compressTempFiles, false);
+    }
+
+    public ExcelRowWriter(String filePath, int rowAccessWindowSize, boolean compressTempFiles, boolean restartable) throws IOException {
 
         this.filePath = filePath;   // 저장하려는 엑셀파일의 경로
+        this.rowAccessWindowSize = rowAccessWindowSize; // 메모리에 유지할 행 수 (0 이하면 전체)
+        this.compressTempFiles = compressTempFiles;     // 임시 파일 압축 여부
+        this.restartable = restartable;                 // 청크 단위로 저널에 기록하고 재시작을 지원할지 여부
         this.isClosed = false;      // 엑셀 파일 작업중 자원이 열려있다는 표시
         this.currentRowNumber = 0;  // 엑셀 파일의 첫 행부터 작업을 시작하도록 한다
     }
@@ -33,19 +97,67 @@ public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity> {
      *
      *  workbook = new XSSFWorkbook();
      *      - 새 excel 워크북 객체를 생성한다 (새로운 액셀)
+     *      - 스트리밍 모드인 경우 new SXSSFWorkbook(rowAccessWindowSize) 를 생성한다
+     *      - 재시작 가능 모드인 경우 워크북 대신 저널 파일을 연다 (워크북은 close() 에서 만든다)
      *
      *  sheet = workbook.createSheet("Sheet1");
      *      - 워크북 내에 "Sheet1" 이라는 이름의 시트를 생성
-     *      
+     *
      *  이 결과는 Excel 파일에 데이터를 기록하기위한 준비 단계이다
      *  이 후에, write() 메소드에서 데이터를 추가할 수 있다
      */
     @Override
     public void open(ExecutionContext executionContext) throws ItemStreamException {
-        workbook = new XSSFWorkbook();
+        isClosed = false;
+        outputWritten = false;
+
+        if (restartable) {
+            openJournal(executionContext);
+            return;
+        }
+
+        workbook = createWorkbook();
         sheet = workbook.createSheet("Sheet1");
     }
 
+    private Workbook createWorkbook() {
+        if (rowAccessWindowSize > 0 || restartable) {
+            SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(rowAccessWindowSize > 0 ? rowAccessWindowSize : DEFAULT_WINDOW_SIZE);
+            streamingWorkbook.setCompressTempFiles(compressTempFiles);
+            return streamingWorkbook;
+        }
+        return new XSSFWorkbook();
+    }
+
+    // 저널 파일을 열고, 재시작인 경우 마지막으로 커밋된 위치로 되돌린다
+    private void openJournal(ExecutionContext executionContext) {
+        Path journal = journalPath();
+        long journalSize = 0L;
+
+        if (executionContext.containsKey(JOURNAL_SIZE_KEY)) {
+            if (!Files.exists(journal)) {
+                throw new ItemStreamException("Excel export journal is missing, cannot restart: " + journal);
+            }
+            journalSize = executionContext.getLong(JOURNAL_SIZE_KEY);
+            currentRowNumber = executionContext.getInt(WRITTEN_ROW_KEY);
+        } else {
+            currentRowNumber = 0;
+        }
+
+        try {
+            journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journalChannel.truncate(journalSize);    // 커밋되지 않은 청크의 행 제거
+            journalChannel.position(journalSize);
+            journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel)));
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open Excel export journal: " + journal, e);
+        }
+    }
+
+    private Path journalPath() {
+        return Paths.get(filePath + ".part");
+    }
+
     /**
      *  배치 작업에서 청크 단위로 전달받은 BeforeEntity 객체들을 Excel 시트에 기록한다
      *  전달받은 각 청크(리스트 형태)의 각 BeforeEntity 객체데 대해 반복문 실행
@@ -58,29 +170,102 @@ public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity> {
      *      - setCellValue(entity.getUsername()): entity 의 username 값을 기록한다
      *
      *  위 의 작업 반복적으로 수행
+     *  재시작 가능 모드인 경우 같은 값을 저널 파일에 기록한다
      */
     @Override
-    public void write(Chunk<? extends BeforeEntity> chunk) {
+    public void write(Chunk<? extends BeforeEntity> chunk) throws IOException {
+        if (restartable) {
+            for (BeforeEntity entity : chunk) {
+                writeJournalCell(entity.getUsername());
+                currentRowNumber++;
+            }
+            return;
+        }
+
         for (BeforeEntity entity : chunk) {
             Row row = sheet.createRow(currentRowNumber++);
             row.createCell(0).setCellValue(entity.getUsername());
         }
     }
 
+    private void writeJournalCell(String value) throws IOException {
+        journalOut.writeBoolean(value != null);
+        if (value != null) {
+            journalOut.writeUTF(value);
+        }
+    }
 
     /**
-     *  배치 작업이 모두 완료된 후 호출, 생성된 excel 워크북을 파일로 저장하고, 사용한 자원을 해제한다
+     *  청크가 커밋될 때마다 호출된다
+     *  재시작 가능 모드인 경우 저널을 디스크에 반영하고 기록된 행 수와 저널 크기를 체크포인트로 저장한다
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (!restartable || journalOut == null) {
+            return;
+        }
+
+        try {
+            journalOut.flush();
+            journalChannel.force(false);
+            executionContext.putLong(JOURNAL_SIZE_KEY, journalChannel.position());
+            executionContext.putInt(WRITTEN_ROW_KEY, currentRowNumber);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to flush Excel export journal: " + journalPath(), e);
+        }
+    }
+
+    /**
+     *  step 이 COMPLETED 로 끝나면 xlsx 파일을 만든다 (close() 보다 먼저 호출된다)
+     *  파일을 만들지 못하면 step 을 FAILED 로 바꿔서 job 이 실패하고 재시작할 수 있게 한다
+     */
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            return stepExecution.getExitStatus();
+        }
+
+        try {
+            writeOutput();
+        } catch (IOException | RuntimeException e) {
+            stepExecution.setStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    // 워크북(또는 저널)을 filePath 에 xlsx 파일로 쓴다
+    private void writeOutput() throws IOException {
+        if (restartable) {
+            if (journalOut != null) {
+                journalOut.close();
+                journalOut = null;
+                journalChannel = null;
+            }
+            writeWorkbookFromJournal();
+            Files.deleteIfExists(journalPath()); // xlsx 파일을 만든 뒤에만 삭제한다
+        } else {
+            try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                workbook.write(fileOut);
+            }
+        }
+        outputWritten = true;
+    }
+
+    /**
+     *  배치 작업이 모두 완료된 후 호출, 사용한 자원을 해제한다
      *
      *  if (isClosed) { return; }
      *      - 이미 close()가 호출되어 자원이 해제된 경우에는 추가 작업을 종료한다
      *
-     *  try (FileOutputStream fileOut = new FileOutputStream(filePath)) { workbook.write(fileOut); }
-     *      - 파일 출력 스트림을 생성하여 filePath에 workbook의 내용을 기록한다
-     *      - try 문을 사용해 자동으로 스트림이 닫히게 한다
-     *      
+     *  xlsx 파일은 afterStep() 에서 이미 만들었다
+     *      - listener 로 등록되지 않아 afterStep() 이 호출되지 않은 경우에만 (재시작 가능 모드가 아닐 때) 여기서 워크북을 파일로 저장한다
+     *
      *  workbook.close();
      *      - workbook 자원을 해제한다
      *      - 메모리 누수, 파일 잠금 등의 문제를 방지
+     *      - 스트리밍 모드인 경우 dispose() 로 임시 파일도 삭제한다
      *
      *  isClosed = true;
      *      - 작업이 완료되었음을 표시한다
@@ -92,12 +277,24 @@ public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity> {
             return;
         }
 
-        try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
-            workbook.write(fileOut);
+        if (restartable) {
+            closeJournal();
+            return;
+        }
+
+        try {
+            if (!outputWritten) {
+                try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                    workbook.write(fileOut);
+                }
+            }
         } catch (IOException e) {
             throw new ItemStreamException(e);
         } finally {
             try {
+                if (workbook instanceof SXSSFWorkbook streamingWorkbook) {
+                    streamingWorkbook.dispose();
+                }
                 workbook.close();
             } catch (IOException e) {
                 throw new ItemStreamException(e);
@@ -106,4 +303,61 @@ public class ExcelRowWriter implements ItemStreamWriter<BeforeEntity> {
             }
         }
     }
+
+    // 저널을 닫는다 (xlsx 파일은 afterStep() 에서 만들고, 실패한 경우 저널은 재시작을 위해 남겨둔다)
+    private void closeJournal() {
+        try {
+            if (journalOut != null) {
+                journalOut.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        } finally {
+            journalOut = null;
+            journalChannel = null;
+            isClosed = true;
+        }
+    }
+
+    // 저널의 행을 스트리밍 워크북으로 옮겨 임시 파일에 쓴 뒤 filePath 로 교체한다 (실패해도 기존 파일이 깨지지 않는다)
+    private void writeWorkbookFromJournal() throws IOException {
+        Path target = Paths.get(filePath);
+        Path tempFile = Paths.get(filePath + ".tmp");
+
+        Workbook journalWorkbook = createWorkbook();
+        boolean written = false;
+        try (DataInputStream journalIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath())));
+             FileOutputStream fileOut = new FileOutputStream(tempFile.toFile())) {
+
+            Sheet journalSheet = journalWorkbook.createSheet("Sheet1");
+            int rowNumber = 0;
+            while (true) {
+                boolean hasValue;
+                try {
+                    hasValue = journalIn.readBoolean();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                Row row = journalSheet.createRow(rowNumber++);
+                if (hasValue) {
+                    row.createCell(0).setCellValue(journalIn.readUTF());
+                } else {
+                    row.createCell(0);
+                }
+            }
+            journalWorkbook.write(fileOut);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(tempFile); // 쓰다 만 임시 파일 제거
+            }
+            if (journalWorkbook instanceof SXSSFWorkbook streamingWorkbook) {
+                streamingWorkbook.dispose();
+            }
+            journalWorkbook.close();
+        }
+
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+    }
 }
@@ -0,0 +1,177 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  엑셀 파일을 시트별, 그리고 시트 안의 행 구간별로 나누는 Partitioner
+ *
+ *  모든 시트를 XlsxSheetStreamer.skipRow() 로 한 번 훑으면서 rowsPerPartition 행마다 구간을 나눈다
+ *  (셀 값을 만들지 않고 건너뛰기만 하기 때문에 실제로 읽고 저장하는 것보다 훨씬 빠르다)
+ *  각 구간의 시작 위치(getPosition())를 함께 넣어 주기 때문에 worker 는 앞의 행들을 다시 읽지 않고 바로 이동한다
+ *
+ *  파티션 수는 gridSize 를 넘지 않는다
+ *      - 구간 수는 시트 수와 행 수로 정해지므로 시트가 많거나 행이 많으면 gridSize 보다 훨씬 많아질 수 있다
+ *        구간마다 파티션을 만들면 TaskExecutor 의 스레드 + 대기열을 넘는 파티션이 TaskRejectedException 으로 실패한다
+ *      - 그래서 구간들을 gridSize 개의 묶음으로 나누고 (지금까지 행 수가 가장 적은 묶음에 다음 구간을 넣는다)
+ *        worker 는 자기 묶음의 구간들을 ExcelRangeListItemReader 로 차례대로 읽는다 (CsvRangePartitioner 와 같은 방식)
+ *
+ *  각 파티션의 ExecutionContext (i = 0 .. RANGE_COUNT_KEY - 1)
+ *      - RANGE_COUNT_KEY         : 파티션이 읽을 구간 수
+ *      - SHEET_INDEX_KEY + ".i"  : 읽을 시트 번호
+ *      - START_OFFSET_KEY + ".i" : 구간이 시작되는 시트 xml 의 위치 (XlsxSheetStreamer 의 startOffset)
+ *      - START_ROW_KEY + ".i"    : 구간의 첫 행 번호 (각 시트의 0 번 행은 헤더이므로 1 부터)
+ *      - END_ROW_KEY + ".i"      : 구간의 마지막 행 번호 (포함, 시트의 마지막 구간은 Integer.MAX_VALUE)
+ *      - READER_NAME_KEY + ".i"  : 구간마다 다른 reader 이름 - ExcelReader 의 체크포인트 키 접두사로 사용한다
+ *      - ranges(context) 로 Range 목록을 다시 만든다
+ */
+public class ExcelSheetPartitioner implements Partitioner {
+
+    public static final String SHEET_INDEX_KEY = "sheetIndex";
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String START_ROW_KEY = "startRow";
+    public static final String END_ROW_KEY = "endRow";
+    public static final String READER_NAME_KEY = "readerName";
+    public static final String RANGE_COUNT_KEY = "rangeCount";
+
+    private static final int FIRST_DATA_ROW = 1; // 0 번 행은 헤더
+
+    /**
+     *  시트 하나의 행 구간
+     *  readerName 은 "readExcel.sheet{시트 번호}-range{구간 번호}" - 구간마다 달라서 체크포인트 키가 겹치지 않는다
+     *  rows 는 구간의 행 수 (묶음의 크기를 맞출 때만 사용한다)
+     */
+    public record Range(int sheetIndex, long startOffset, int startRow, int endRow, int rows, String readerName) {
+    }
+
+    private final String filePath;
+    private final int rowsPerPartition;
+
+    public ExcelSheetPartitioner(String filePath, int rowsPerPartition) {
+        if (rowsPerPartition <= 0) {
+            throw new IllegalArgumentException("rowsPerPartition must be greater than 0: " + rowsPerPartition);
+        }
+        this.filePath = filePath;
+        this.rowsPerPartition = rowsPerPartition;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+
+        List<Range> ranges = new ArrayList<>();
+
+        try {
+            int sheetCount = XlsxSheetStreamer.countSheets(filePath);
+            for (int sheetIndex = 0; sheetIndex < sheetCount; sheetIndex++) {
+                splitSheet(sheetIndex, ranges);
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to partition Excel file: " + filePath, e);
+        }
+
+        return group(ranges, Math.max(gridSize, 1));
+    }
+
+    private void splitSheet(int sheetIndex, List<Range> ranges) throws IOException {
+
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(filePath, sheetIndex)) {
+
+            long startOffset = 0L;
+            int startRow = FIRST_DATA_ROW;
+            int rowsInRange = 0;
+            int range = 0;
+
+            while (streamer.skipRow()) {
+                if (streamer.getLastRowNum() < FIRST_DATA_ROW) {
+                    continue; // 헤더는 구간의 행 수에 포함하지 않는다
+                }
+
+                rowsInRange++;
+                if (rowsInRange == rowsPerPartition) {
+                    ranges.add(newRange(sheetIndex, range++, startOffset, startRow, streamer.getLastRowNum(), rowsInRange));
+                    startOffset = streamer.getPosition();
+                    startRow = streamer.getLastRowNum() + 1;
+                    rowsInRange = 0;
+                }
+            }
+
+            // 남은 행 (시트의 끝까지)
+            if (rowsInRange > 0) {
+                ranges.add(newRange(sheetIndex, range, startOffset, startRow, Integer.MAX_VALUE, rowsInRange));
+            }
+        }
+    }
+
+    private static Range newRange(int sheetIndex, int range, long startOffset, int startRow, int endRow, int rows) {
+        return new Range(sheetIndex, startOffset, startRow, endRow, rows, "readExcel.sheet" + sheetIndex + "-range" + range);
+    }
+
+    // 구간들을 최대 gridSize 개의 파티션으로 묶는다 (행 수가 가장 적은 파티션에 다음 구간을 넣는다)
+    private static Map<String, ExecutionContext> group(List<Range> ranges, int gridSize) {
+
+        int partitionCount = Math.min(gridSize, ranges.size());
+        List<List<Range>> groups = new ArrayList<>(partitionCount);
+        long[] groupRows = new long[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        for (Range range : ranges) {
+            int smallest = 0;
+            for (int i = 1; i < partitionCount; i++) {
+                if (groupRows[i] < groupRows[smallest]) {
+                    smallest = i;
+                }
+            }
+            groups.get(smallest).add(range);
+            groupRows[smallest] += range.rows();
+        }
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.put("partition" + i, toContext(groups.get(i)));
+        }
+        return partitions;
+    }
+
+    private static ExecutionContext toContext(List<Range> ranges) {
+        ExecutionContext context = new ExecutionContext();
+        context.putInt(RANGE_COUNT_KEY, ranges.size());
+
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            context.putInt(SHEET_INDEX_KEY + "." + i, range.sheetIndex());
+            context.putLong(START_OFFSET_KEY + "." + i, range.startOffset());
+            context.putInt(START_ROW_KEY + "." + i, range.startRow());
+            context.putInt(END_ROW_KEY + "." + i, range.endRow());
+            context.putString(READER_NAME_KEY + "." + i, range.readerName());
+        }
+        return context;
+    }
+
+    /**
+     *  partition() 이 만든 ExecutionContext 에서 구간 목록을 다시 만든다 (worker step 의 reader 에서 사용)
+     */
+    public static List<Range> ranges(ExecutionContext context) {
+        int count = context.getInt(RANGE_COUNT_KEY);
+
+        List<Range> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranges.add(new Range(
+                    context.getInt(SHEET_INDEX_KEY + "." + i),
+                    context.getLong(START_OFFSET_KEY + "." + i),
+                    context.getInt(START_ROW_KEY + "." + i),
+                    context.getInt(END_ROW_KEY + "." + i),
+                    0, // 묶음을 나눈 뒤에는 사용하지 않는다
+                    context.getString(READER_NAME_KEY + "." + i)));
+        }
+        return ranges;
+    }
+}
@@ -1,36 +1,47 @@
 package org.mybatch5.testbatch.batch;
 
-import lombok.RequiredArgsConstructor;
 import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
 import org.mybatch5.testbatch.repository.BeforeRepository;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamWriter;
-import org.springframework.batch.item.data.RepositoryItemReader;
-import org.springframework.batch.item.data.builder.RepositoryItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
-import java.util.Map;
 
 
 /**
  *  DB 테이블을 읽어서 엑셀로 저장하는 배치
  */
 @Configuration
-@RequiredArgsConstructor
 public class FifthBatch {
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final BeforeRepository beforeRepository;
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+
+    public FifthBatch(JobRepository jobRepository,
+                      @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                      BeforeRepository beforeRepository,
+                      BatchMetricsListener batchMetricsListener) {
+        this.jobRepository = jobRepository;
+        this.platformTransactionManager = platformTransactionManager;
+        this.beforeRepository = beforeRepository;
+        this.batchMetricsListener = batchMetricsListener;
+    }
 
     // ===  job 정의 === //
     @Bean
@@ -39,38 +50,41 @@ public class FifthBatch {
         System.out.println("fifth job");
 
         return new JobBuilder("fifthJob", jobRepository)
-                .start(fifthStep())
+                .start(fifthStep(null))
                 .build();
     }
     
     // === step 정의 === //
     @Bean
-    public Step fifthStep() {
+    @JobScope
+    public Step fifthStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
 
         System.out.println("fifth step");
 
-        return new StepBuilder("fifthStep", jobRepository)          // step 정의
-                .<BeforeEntity, BeforeEntity> chunk(10, platformTransactionManager) // 청크 사이즈
-                .reader(fifthBeforeReader())
+        return batchMetricsListener.applyTo(new StepBuilder("fifthStep", jobRepository)          // step 정의
+                .<BeforeEntity, BeforeEntity> chunk(chunkSize, platformTransactionManager) // 청크 사이즈
+                .reader(fifthBeforeReader(null))
                 .processor(fifthProcessor())
-                .writer(fifthwriter())
+                .writer(fifthwriter()))
                 .build();   // step 생성
     }
     
     // === reader 정의 === //
     @Bean
-    public RepositoryItemReader<BeforeEntity> fifthBeforeReader() {
-
-        RepositoryItemReader<BeforeEntity> reader = new RepositoryItemReaderBuilder<BeforeEntity>()
-                .name("beforeReader")
-                .pageSize(10)
-                .methodName("findAll")
-                .repository(beforeRepository)
-                .sorts(Map.of("id", Sort.Direction.ASC))
-                .build();
+    @StepScope
+    public KeysetItemReader<BeforeEntity> fifthBeforeReader(@Value(BatchSizes.PAGE_SIZE) Integer pageSize) {
+
+        // id 기준 keyset 페이징 (WHERE id > :lastId ORDER BY id LIMIT :pageSize)
+        KeysetItemReader<BeforeEntity> reader = new KeysetItemReader<>(
+                "beforeReader",
+                pageSize,
+                (lastId, size) -> beforeRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(size)),
+                BeforeEntity::getId
+        );
 
-        // 전체 데이터 셋에서 어디까지 수행 했는지의 값을 저장하지 않음
-        reader.setSaveState(false);
+        // 전체 데이터 셋에서 어디까지 수행 했는지의 값을 저장한다
+        // writer 가 청크 단위로 이어 쓰기 때문에 재시작 시 reader 도 같은 위치부터 읽어야 한다
+        reader.setSaveState(true);
 
         return reader;
     }
@@ -82,13 +96,20 @@ public class FifthBatch {
     }
 
 
-    // === writer 정의 === //
+    /**
+     *  === writer 정의 ===
+     *  new ExcelRowWriter(filePath, 1000, true, true)
+     *      - SXSSF 스트리밍 모드: 메모리에는 1000 행만 유지하고 나머지는 압축된 임시 파일로 내려 쓴다
+     *      - BeforeEntity 테이블의 크기와 상관없이 일정한 메모리로 엑셀을 만든다
+     *      - 재시작 가능 모드: 청크마다 "result.xlsx.part" 저널에 기록하고 기록한 행 수를 ExecutionContext 에 저장한다
+     *        실패 후 재시작하면 마지막으로 커밋된 청크 다음부터 이어서 쓴다
+     */
     @Bean
     public ItemStreamWriter<BeforeEntity> fifthwriter() {
 
         try {
             // 해당 경로의 엑셀 파일에 저장 혹은 생성
-            return new ExcelRowWriter("C:\\Users\\USER\\OneDrive\\문서\\result.xlsx");
+            return new ExcelRowWriter("C:\\Users\\USER\\OneDrive\\문서\\result.xlsx", 1000, true, true);
             //리눅스나 맥은 /User/형태로
         } catch (IOException e) {
             throw new RuntimeException(e);
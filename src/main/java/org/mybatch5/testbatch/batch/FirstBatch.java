@@ -1,29 +1,34 @@
 package org.mybatch5.testbatch.batch;
 
-import lombok.RequiredArgsConstructor;
 import org.mybatch5.testbatch.entity.AfterEntity;
+import org.mybatch5.testbatch.entity.AfterEntityInsertSetter;
 import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
 import org.mybatch5.testbatch.repository.AfterRepository;
 import org.mybatch5.testbatch.repository.BeforeRepository;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.data.RepositoryItemReader;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.data.RepositoryItemWriter;
-import org.springframework.batch.item.data.builder.RepositoryItemReaderBuilder;
 import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.Map;
+import javax.sql.DataSource;
 
 @Configuration
-@RequiredArgsConstructor
 public class FirstBatch {
     /**
      *  JobRepository
@@ -34,12 +39,27 @@ public class FirstBatch {
      *      - 배치 처리 중 데이터베이스 트랜잭션을 관리한다
      *      - 청크 기반 처리에서 각 청크(chunk) 단위의 데이터 읽기, 처리, 쓰기 작업을 하나의 트랜잭션으로 묶어 커밋하거나
      *        에러 발생 시 롤백하도록 한다
+     *      - chunkTransactionManager(BatchTransactionConfig) 를 받아 data DB 쓰기도 청크 트랜잭션에 묶는다
      */
     private final JobRepository jobRepository; // 저장소 역할
     private final PlatformTransactionManager platformTransactionManager; // 배치 트랜잭션 담당
 
     private final BeforeRepository beforeRepository;
     private final AfterRepository afterRepository;
+    private final DataSource dataSource; // writeMode=jdbc 에서 사용하는 비즈니스 DB
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+
+    public FirstBatch(JobRepository jobRepository, @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                      BeforeRepository beforeRepository, AfterRepository afterRepository,
+                      @Qualifier("dataDBSource") DataSource dataSource,
+                      BatchMetricsListener batchMetricsListener) {
+        this.jobRepository = jobRepository;
+        this.platformTransactionManager = platformTransactionManager;
+        this.beforeRepository = beforeRepository;
+        this.afterRepository = afterRepository;
+        this.dataSource = dataSource;
+        this.batchMetricsListener = batchMetricsListener;
+    }
 
     /**
      *  ==== job 정의 ====
@@ -55,7 +75,7 @@ public class FirstBatch {
         System.out.println("first job");
 
         return new JobBuilder("firstJob", jobRepository) // job 설정 -> "이름", 저장소
-                .start(firstStep()) // step 등록
+                .start(firstStep(null, null)) // step 등록 (@JobScope 이므로 실제 값은 실행 시점에 주입된다)
                 .build(); // job 생성
     }
 
@@ -64,60 +84,73 @@ public class FirstBatch {
      *  new StepBuilder("firstStep", jobRepository)
      *      "firstStep" 이라는 이름의 Step 생성
      *
-     *  <BeforeEntity, AfterEntity> chunk(10, platformTransactionManager)
+     *  @JobScope / chunkSize
+     *      job 이 실행될 때 step 을 만들기 때문에 job 파라미터 "chunkSize" 로 청크 크기를 정할 수 있다 (BatchSizes.CHUNK_SIZE)
+     *
+     *  <BeforeEntity, AfterEntity> chunk(chunkSize, platformTransactionManager)
      *      청크 기반 처리 방식을 사용
-     *          - 데이터를 10건씩 읽어오고(processor로 변환 후) 한 묶음 단위로 트랜잭션을 커밋
+     *          - 데이터를 chunkSize 건씩 읽어오고(processor로 변환 후) 한 묶음 단위로 트랜잭션을 커밋
      *      트랜잭션 매니저(PlatformTransactionManager)를 통해 각 청크 단위의 작업이 하나의 트랜잭션으로 처리한다
      *
      *      reader(beforeReader()): 데이터를 읽어오는 부분입니다.
      *      processor(middleProcessor()): 읽어온 데이터를 변환하는 부분입니다.
      *      writer(afterWriter()): 변환된 데이터를 저장하는 부분입니다.
+     *
+     *  writeMode (job 파라미터, 기본값 "jpa")
+     *      "jpa"  - afterWriter() : AfterRepository.save 를 한 건씩 호출 (기존 방식)
+     *      "jdbc" - afterJdbcWriter() : 청크 전체를 JDBC batch INSERT 한 번으로 저장
      */
     @Bean
-    public Step firstStep() { // step 생성
+    @JobScope
+    public Step firstStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize,
+                          @Value("#{jobParameters['writeMode'] ?: 'jpa'}") String writeMode) { // step 생성
         
         System.out.println("first step");
 
+        ItemWriter<AfterEntity> writer = switch (writeMode.toLowerCase()) {
+            case "jdbc" -> afterJdbcWriter();
+            default -> afterWriter();
+        };
+
         // 청크 대량의 데이터를 페이징 처럼 부분부분 읽어오는 단위를 지정
-        return new StepBuilder("firstStep", jobRepository) // step 설정 -> "이름", 저장소
-                .<BeforeEntity, AfterEntity> chunk(10, platformTransactionManager) // <입력타입, 출력타입> 청크 설정 -> 청크단위, 각 청크에대한 트랜잭션위임
-                .reader(beforeReader())         // reader 데이터를 읽는 메소드 자리
+        return batchMetricsListener.applyTo(new StepBuilder("firstStep", jobRepository) // step 설정 -> "이름", 저장소
+                .<BeforeEntity, AfterEntity> chunk(chunkSize, platformTransactionManager) // <입력타입, 출력타입> 청크 설정 -> 청크단위, 각 청크에대한 트랜잭션위임
+                .reader(beforeReader(null))         // reader 데이터를 읽는 메소드 자리
                 .processor(middleProcessor())   // processor 읽은 데이터를 처리하는 메소드 자리
-                .writer(afterWriter())          // writer 처리된 데이터를 저장하는 메소드 자리
+                .writer(writer))                // writer 처리된 데이터를 저장하는 메소드 자리 (writeMode 에 따라 선택)
                 .build(); // step 생성
     }
 
     /**
      *  ==== reader 정의 ====
-     *  new RepositoryItemReaderBuilder<BeforeEntity>()
+     *  new KeysetItemReader<BeforeEntity>(...)
      *      - 저장소에서 아이템을 읽는다 (DB를 읽어온다)
+     *      - findAll(PageRequest) 는 LIMIT/OFFSET 쿼리라 뒤쪽 페이지일수록 느려지기 때문에
+     *        마지막으로 읽은 id 다음부터 읽는 keyset 방식을 사용한다
      *
-     *  name("beforeReader")
-     *      reader 의 이름을 지정
+     *  "beforeReader"
+     *      reader 의 이름을 지정 (ExecutionContext 에 마지막 id 를 저장할 때 키로 사용)
      *
-     *  pageSize(10)
-     *      데이터를 10건씩 읽어온다
+     *  pageSize
+     *      데이터를 pageSize 건씩 읽어온다 (job 파라미터 "pageSize", 없으면 청크 크기 - BatchSizes.PAGE_SIZE)
      *      청크의 크기과 같게해서 페이징 처리를 효율적으로 (청크단위와 크기를 맞춤)
      *
-     *  methodName("findAll")
-     *      beforeRepository의 findAll 메서드를 호출하여 데이터를 읽어온다
+     *  beforeRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(size))
+     *      WHERE id > :lastId ORDER BY id ASC LIMIT :size 로 다음 페이지를 읽어온다
      *
-     *  repository(beforeRepository)
-     *      실제 데이터를 읽어올 Repository를 지정
-     *
-     *  sorts(Map.of("id", Sort.Direction.ASC))
-     *      읽어온 데이터를 Id 를 기준으로 오름차순으로 정렬한다
+     *  BeforeEntity::getId
+     *      읽은 객체의 id 를 다음 페이지의 기준으로 사용한다
      */
     @Bean
-    public RepositoryItemReader<BeforeEntity> beforeReader() { // <읽을 데이터 타입>
-
-        return new RepositoryItemReaderBuilder<BeforeEntity>() // reader 설정
-                .name("beforeReader")   // 해당 reader 이름
-                .pageSize(10)           // 10개씩 끊어서 (청크 단위와 맞추는게 효율적)
-                .methodName("findAll")  // 레포지토리의 메소드명
-                .repository(beforeRepository) // 데이터를 읽을때 사용하는 레포지토리
-                .sorts(Map.of("id", Sort.Direction.ASC)) // 정렬 방향 -> id 오름차순
-                .build();   // reader 생성
+    @StepScope
+    public KeysetItemReader<BeforeEntity> beforeReader(@Value(BatchSizes.PAGE_SIZE) Integer pageSize) { // <읽을 데이터 타입>
+
+        return new KeysetItemReader<>(
+                "beforeReader",     // 해당 reader 이름
+                pageSize,           // pageSize 개씩 끊어서 (청크 단위와 맞추는게 효율적)
+                (lastId, size) -> beforeRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(size)), // 다음 페이지 조회
+                BeforeEntity::getId // 마지막으로 읽은 id
+        );
     }
 
     /**
@@ -166,4 +199,24 @@ public class FirstBatch {
                 .methodName("save")             // 저장소에서 사용할 메소드 설정
                 .build();               // 객체 생성
     }
-}
\ No newline at end of file
+
+    /**
+     *  ==== Write 정의 (JDBC batch) ====
+     *  AfterEntity 는 id 가 IDENTITY 라서 Hibernate 가 INSERT 를 묶지 못하고 save 한 건마다 DB 를 왕복한다
+     *  JdbcBatchItemWriter 는 청크의 모든 행을 PreparedStatement.addBatch() 로 모아 executeBatch() 한 번으로 보낸다
+     *
+     *  MySQL 에서는 datasource url 에 rewriteBatchedStatements=true 가 있어야
+     *  드라이버가 batch 를 여러 VALUES 를 가진 INSERT 하나로 다시 써서 실제로 왕복 횟수가 줄어든다
+     *
+     *  id 는 DB 가 채우기 때문에 INSERT 에 넣지 않는다
+     */
+    @Bean
+    public JdbcBatchItemWriter<AfterEntity> afterJdbcWriter() {
+
+        return new JdbcBatchItemWriterBuilder<AfterEntity>()
+                .dataSource(dataSource)
+                .sql(AfterEntityInsertSetter.SQL)
+                .itemPreparedStatementSetter(new AfterEntityInsertSetter())
+                .build();
+    }
+}
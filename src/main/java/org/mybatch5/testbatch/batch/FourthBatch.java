@@ -1,11 +1,13 @@
 package org.mybatch5.testbatch.batch;
 
-import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.Row;
 import org.mybatch5.testbatch.entity.AfterEntity;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
+import org.mybatch5.testbatch.mapping.ColumnMapper;
+import org.mybatch5.testbatch.mapping.EntityMappings;
 import org.mybatch5.testbatch.repository.AfterRepository;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
@@ -13,23 +15,33 @@ import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.data.RepositoryItemWriter;
 import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.io.IOException;
-
 
 /**
  *  엑셀 파일을 읽어서 DB 테이블에 저장하는 배치
  */
 @Configuration
-@RequiredArgsConstructor
 public class FourthBatch {
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final AfterRepository afterRepository;
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+
+    public FourthBatch(JobRepository jobRepository,
+                       @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                       AfterRepository afterRepository,
+                       BatchMetricsListener batchMetricsListener) {
+        this.jobRepository = jobRepository;
+        this.platformTransactionManager = platformTransactionManager;
+        this.afterRepository = afterRepository;
+        this.batchMetricsListener = batchMetricsListener;
+    }
 
     // === job 정의 ===
     @Bean
@@ -37,69 +49,64 @@ public class FourthBatch {
         System.out.println("fourth job");
 
         return new JobBuilder("fourthJob", jobRepository)
-                .start(fourthStep())
+                .start(fourthStep(null))
                 .build();
     }
 
     /**
      *  === step 정의 ===
-     *  <Row, AfterEntity>chunk(10, platformTransactionManager)
+     *  <ExcelRow, AfterEntity>chunk(chunkSize, platformTransactionManager)
      *      - <입력타입, 반환타입>
-     *      - <Row>: 입력데이터로 Apache POI의 Row 객체 (엑셀의 한행)을 반환 타입 AfterEntity 객체로 변환한다
+     *      - <ExcelRow>: 입력데이터로 엑셀의 한 행(ExcelRow)을 반환 타입 AfterEntity 객체로 변환한다
      */
     @Bean
-    public Step fourthStep() {
-        return new StepBuilder("fourthStep", jobRepository) // step 정의
-                // import org.apache.poi.ss.usermodel.Row; 엑셇을 읽는 타입
-                .<Row, AfterEntity> chunk(10, platformTransactionManager) // Row: 액셀의 한행  
+    @JobScope
+    public Step fourthStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+        return batchMetricsListener.applyTo(new StepBuilder("fourthStep", jobRepository) // step 정의
+                .<ExcelRow, AfterEntity> chunk(chunkSize, platformTransactionManager) // ExcelRow: 액셀의 한행
                 .reader(fourthReader())
                 .processor(fourthProcessor())
-                .writer(fourthAfterWriter())
+                .writer(fourthAfterWriter()))
                 .build();   // step 생성
     }
 
     /**
      *  === reader 정의 ===
-     *  ItemStreamReader<Row> excelReader()
+     *  ItemStreamReader<ExcelRow> fourthReader()
      *      - 배치1, 2 의 경우 RepositoryStreamReader 를 사용해 데이터베이스에서 데이터를 읽었다
      *      - 배치4 의 경우 엑셀 파일을 읽어서 데이터로 사용하기 때문에 ItemStreamReader 를 사용한다
      *
-     *  new ExcelRowReader("C:\\Users\\USER\\OneDrive\\문서\\통합 문서1.xlsx");
+     *  new StreamingExcelRowReader("C:\\Users\\USER\\OneDrive\\문서\\통합 문서1.xlsx");
      *      - 지정된 경로 "C:\\Users\\USER\\OneDrive\\문서\\통합 문서1.xlsx" 에 있는 엑셀 파일을 읽어 한 행씩 사용
-     *      - ExcelRowReader() 개발자가 정의한 엑셀을 다루기위한 클래스
+     *      - ExcelRowReader 는 엑셀 전체를 메모리에 올리기 때문에 큰 파일에서 OOM 이 발생한다
+     *      - StreamingExcelRowReader 는 시트를 한 행씩 읽어 힙 사용량이 파일 크기와 상관없이 일정하다
      */
     // == reader == //
     @Bean
-    public ItemStreamReader<Row> fourthReader() {
-
-        try {
-            return new ExcelRowReader("C:\\Users\\USER\\OneDrive\\문서\\통합 문서1.xlsx");
-        } catch (IOException e) {
-            return (ItemStreamReader<Row>) new RuntimeException(e);
-        }
+    public ItemStreamReader<ExcelRow> fourthReader() {
+        return new StreamingExcelRowReader("C:\\Users\\USER\\OneDrive\\문서\\통합 문서1.xlsx");
     }
 
     /**
      *  === processor 정의 ===
-     *  ItemProcessor<Row, AfterEntity>
+     *  ItemProcessor<ExcelRow, AfterEntity>
      *      - <입력타입, 반환타입>
      *      - 엑셀 파일의 한 행을 받아서, AfterEntity 객체로 반환
      *
-     *  item.getCell(0).getStringCellValue()
-     *      - item.getCell(0): Row 객체(엑셀의 한 행) 중 0번째 인덱스 열(cell) 을 가르킨다
-     *      - getStringCellValue(): 반환된 cell 의 값을 문자열로 읽어온다 (텍스트 형식으로 추출)
+     *  EntityMappings.AFTER_ENTITY.bindPositions()
+     *      - 이 파일은 헤더 행이 없으므로 매핑에 정의한 순서대로 열 번호를 정한다 (username -> 0번째 열)
+     *      - 열 번호와 setter 는 빈을 만들 때 한 번만 정하고, 행마다 mapper.map(item) 으로 AfterEntity 를 만든다
+     *      - username 이 비어있는 행은 null 을 반환해서 저장하지 않는다 (processor 가 null 을 반환하면 filter 된다)
      */
     @Bean
-    public ItemProcessor<Row, AfterEntity> fourthProcessor() {
+    public ItemProcessor<ExcelRow, AfterEntity> fourthProcessor() {
 
-        return new ItemProcessor<Row, AfterEntity>() {
-            @Override
-            public AfterEntity process(Row item) throws Exception {
-
-                AfterEntity afterEntity = new AfterEntity();
-                afterEntity.setUsername(item.getCell(0).getStringCellValue()); // 각 행의 0번째 cell 읽어서 text 타입으로 추출
+        ColumnMapper<AfterEntity> mapper = EntityMappings.AFTER_ENTITY.bindPositions();
 
-                return afterEntity;
+        return new ItemProcessor<ExcelRow, AfterEntity>() {
+            @Override
+            public AfterEntity process(ExcelRow item) throws Exception {
+                return mapper.map(item); // 각 행의 0번째 cell 을 username 으로 사용
             }
         };
     }
@@ -0,0 +1,69 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  테이블의 id 범위를 gridSize 개로 나누는 Partitioner
+ *
+ *  SELECT MIN(id), MAX(id) 로 전체 범위를 구한 뒤 같은 크기의 구간으로 나누고
+ *  각 파티션의 ExecutionContext 에 "minId", "maxId" (둘 다 포함) 를 넣는다
+ *  worker step 의 reader 는 #{stepExecutionContext['minId']} 로 자신의 구간만 읽는다
+ *
+ *  id 가 중간에 비어 있으면 파티션마다 실제 행 수는 다를 수 있다
+ */
+public class IdRangePartitioner implements Partitioner {
+
+    public static final String MIN_ID_KEY = "minId";
+    public static final String MAX_ID_KEY = "maxId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String column;
+
+    public IdRangePartitioner(DataSource dataSource, String table, String column) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.table = table;
+        this.column = column;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(" + column + ") FROM " + table, Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + column + ") FROM " + table, Long.class);
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+
+        // 빈 테이블: 아무것도 읽지 않는 파티션 하나만 만든다
+        if (min == null || max == null) {
+            partitions.put("partition0", range(1L, 0L));
+            return partitions;
+        }
+
+        long targetSize = (max - min) / Math.max(gridSize, 1) + 1;
+        long start = min;
+        int number = 0;
+
+        while (start <= max) {
+            long end = Math.min(start + targetSize - 1, max);
+            partitions.put("partition" + number, range(start, end));
+            start = end + 1;
+            number++;
+        }
+
+        return partitions;
+    }
+
+    private ExecutionContext range(long minId, long maxId) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(MIN_ID_KEY, minId);
+        context.putLong(MAX_ID_KEY, maxId);
+        return context;
+    }
+}
@@ -0,0 +1,87 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ *  id 구간 단위로 UPDATE 문을 실행하는 Tasklet
+ *
+ *  reader -> processor -> writer 는 대상 행을 모두 읽어와서 한 건씩 다시 UPDATE 한다
+ *  이 tasklet 은 행을 읽지 않고 "UPDATE ... WHERE 조건 AND id > ? AND id <= ?" 를 구간마다 한 번씩 실행한다
+ *
+ *  updateSql
+ *      - 마지막 두 개의 '?' 에 구간의 시작(포함하지 않음), 끝(포함) id 가 바인딩된다
+ *      - 예) UPDATE WinEntity SET reward = true WHERE win >= 10 AND id > ? AND id <= ?
+ *      - 같은 구간을 다시 실행해도 결과가 같은(멱등) 문장이어야 한다
+ *
+ *  sliceSize
+ *      - 한 번에 UPDATE 할 id 구간의 크기 (행 수가 아니라 id 의 폭)
+ *      - execute() 한 번이 하나의 구간이고, 구간마다 트랜잭션이 커밋된다 (RepeatStatus.CONTINUABLE)
+ *
+ *  LAST_ID_KEY / MAX_ID_KEY
+ *      - 구간이 끝날 때마다 마지막 id 를 step 의 ExecutionContext 에 저장한다
+ *      - 재시작 시 저장된 id 다음 구간부터 이어서 실행한다
+ *      - 처음 실행할 때 구한 MAX(id) 를 저장해 두고 재시작해도 같은 범위까지만 실행한다
+ */
+public class IdRangeUpdateTasklet implements Tasklet {
+
+    private static final String LAST_ID_KEY = "idRangeUpdate.last.id";
+    private static final String MAX_ID_KEY = "idRangeUpdate.max.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String idColumn;
+    private final String updateSql;
+    private final long sliceSize;
+
+    public IdRangeUpdateTasklet(DataSource dataSource, String table, String idColumn, String updateSql, long sliceSize) {
+        if (sliceSize <= 0) {
+            throw new IllegalArgumentException("sliceSize must be greater than 0: " + sliceSize);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.table = table;
+        this.idColumn = idColumn;
+        this.updateSql = updateSql;
+        this.sliceSize = sliceSize;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+
+        // 처음 실행: 대상 범위를 구한다
+        if (!context.containsKey(MAX_ID_KEY)) {
+            Long min = jdbcTemplate.queryForObject("SELECT MIN(" + idColumn + ") FROM " + table, Long.class);
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + table, Long.class);
+
+            // 빈 테이블
+            if (min == null || max == null) {
+                return RepeatStatus.FINISHED;
+            }
+            context.putLong(LAST_ID_KEY, min - 1);
+            context.putLong(MAX_ID_KEY, max);
+        }
+
+        long lastId = context.getLong(LAST_ID_KEY);
+        long maxId = context.getLong(MAX_ID_KEY);
+
+        if (lastId >= maxId) {
+            return RepeatStatus.FINISHED;
+        }
+
+        long endId = Math.min(lastId + sliceSize, maxId);
+        int updated = jdbcTemplate.update(updateSql, lastId, endId);
+
+        contribution.incrementWriteCount(updated);
+        context.putLong(LAST_ID_KEY, endId);
+
+        return endId >= maxId ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+}
@@ -0,0 +1,134 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+/**
+ *  쿼리 한 번으로 연 서버 커서에서 행을 스트리밍으로 읽는 reader
+ *
+ *  JdbcPagingItemReader 는 페이지마다 "... WHERE id > :lastId ORDER BY id LIMIT :pageSize" 쿼리를 다시 실행한다
+ *  이 reader 는 "... WHERE id > ? ORDER BY id" 를 step 에서 한 번만 실행하고, 결과를 끝까지 ResultSet.next() 로 읽는다
+ *
+ *  전용 커넥션
+ *      - 청크 트랜잭션의 커넥션(DataSourceUtils)이 아니라 dataSource.getConnection() 으로 따로 받은 커넥션을 step 이 끝날 때까지 사용한다
+ *      - MySQL 스트리밍 ResultSet 이 열려 있는 동안 그 커넥션으로는 다른 SQL 을 실행할 수 없고,
+ *        청크가 커밋될 때 커서가 닫혀서도 안 되기 때문이다
+ *      - step 스레드 하나가 data DB 커넥션을 두 개(청크 트랜잭션 + 이 reader) 사용하므로 풀 크기에 포함해서 설정한다
+ *
+ *  fetchSize
+ *      - Integer.MIN_VALUE (기본) : mysql-connector-j 가 행을 한 건씩 스트리밍한다 (결과 전체를 메모리에 올리지 않는다)
+ *      - 양수                     : datasource url 에 useCursorFetch=true 가 있으면 서버 커서에서 그 건수씩 가져온다
+ *      - 스트리밍 중에는 MySQL 의 net_write_timeout 안에 다음 행을 읽어야 하므로 청크 처리가 아주 느린 step 에는 양수 fetchSize 를 사용한다
+ *
+ *  sql
+ *      - 마지막으로 읽은 id 를 받는 ? 하나를 가지고, id 오름차순으로 정렬해야 한다
+ *      - 예) SELECT id, username FROM BeforeEntity WHERE id > ? ORDER BY id
+ *
+ *  LAST_ID_KEY
+ *      - 청크가 커밋될 때 마지막으로 읽은 id 를 ExecutionContext 에 저장한다 (KeysetItemReader 와 같은 키)
+ *      - 재시작 시 앞의 행을 다시 읽지 않고 저장된 id 다음부터 커서를 연다
+ */
+public class KeysetCursorItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String LAST_ID_KEY = "last.id";
+    private static final long START_ID = 0L; // IDENTITY id 는 1 부터 시작한다
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final RowMapper<T> rowMapper;
+    private final Function<T, Long> idExtractor;
+
+    private int fetchSize = Integer.MIN_VALUE;
+
+    private long lastId = START_ID;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private int rowNum;
+
+    public KeysetCursorItemReader(String name, DataSource dataSource, String sql,
+                                  RowMapper<T> rowMapper, Function<T, Long> idExtractor) {
+        setName(name);
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.rowMapper = rowMapper;
+        this.idExtractor = idExtractor;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        // super.open() 이 doOpen() 으로 커서를 열기 전에 마지막 id 를 복원한다
+        lastId = START_ID;
+        if (isSaveState()) {
+            lastId = executionContext.getLong(getExecutionContextKey(LAST_ID_KEY), START_ID);
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        rowNum = 0;
+        try {
+            connection = dataSource.getConnection();
+            connection.setReadOnly(true);
+
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, lastId);
+
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            doClose();
+            throw new DataAccessResourceFailureException("Failed to open cursor: " + sql, e);
+        }
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (resultSet == null || !resultSet.next()) {
+            return null;
+        }
+
+        T item = rowMapper.mapRow(resultSet, rowNum++);
+        lastId = idExtractor.apply(item);
+        return item;
+    }
+
+    // 마지막 id 다음부터 커서를 열었으므로 앞의 항목을 다시 읽지 않는다
+    @Override
+    protected void jumpToItem(int itemIndex) {
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(LAST_ID_KEY), lastId);
+        }
+    }
+
+    @Override
+    protected void doClose() {
+        JdbcUtils.closeResultSet(resultSet);
+        JdbcUtils.closeStatement(statement);
+        JdbcUtils.closeConnection(connection); // 풀에 반납
+        resultSet = null;
+        statement = null;
+        connection = null;
+    }
+}
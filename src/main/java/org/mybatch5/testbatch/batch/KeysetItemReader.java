@@ -0,0 +1,105 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ *  keyset(seek) 방식으로 페이지를 읽는 reader
+ *
+ *  RepositoryItemReader 는 findAll(PageRequest) 로 읽기 때문에 MySQL 에서 LIMIT n OFFSET m 쿼리가 된다
+ *  OFFSET 은 앞의 m 건을 모두 읽고 버리기 때문에 뒤쪽 페이지로 갈수록 느려지고, 전체를 읽으면 O(n²) 이 된다
+ *
+ *  이 reader 는 마지막으로 읽은 id 를 기억해두고 다음 페이지를 "WHERE id > :lastId ORDER BY id LIMIT :n" 으로 읽는다
+ *  id 인덱스로 바로 찾아가기 때문에 몇 번째 페이지든 같은 비용이 든다
+ *
+ *  pageFetcher
+ *      - (lastId, pageSize) -> 다음 페이지 를 반환하는 함수
+ *      - 예) (lastId, size) -> beforeRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(size))
+ *      - 반드시 id 오름차순으로 정렬된 결과를 반환해야 한다
+ *
+ *  idExtractor
+ *      - 읽은 객체에서 id 를 꺼내는 함수 (예: BeforeEntity::getId)
+ *
+ *  LAST_ID_KEY
+ *      - 청크가 커밋될 때 마지막으로 읽은 id 를 ExecutionContext 에 저장한다
+ *      - 재시작 시 앞의 페이지들을 다시 읽지 않고 저장된 id 다음부터 읽는다
+ */
+public class KeysetItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String LAST_ID_KEY = "last.id";
+    private static final long START_ID = 0L; // IDENTITY id 는 1 부터 시작한다
+
+    private final BiFunction<Long, Integer, List<T>> pageFetcher;
+    private final Function<T, Long> idExtractor;
+    private final int pageSize;
+
+    private long lastId = START_ID;
+    private List<T> page = Collections.emptyList();
+    private int pageIndex;
+
+    public KeysetItemReader(String name, int pageSize,
+                            BiFunction<Long, Integer, List<T>> pageFetcher,
+                            Function<T, Long> idExtractor) {
+        setName(name);
+        this.pageSize = pageSize;
+        this.pageFetcher = pageFetcher;
+        this.idExtractor = idExtractor;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        // super.open() 이 재시작 위치로 이동(jumpToItem)하기 전에 마지막 id 를 복원한다
+        lastId = START_ID;
+        if (isSaveState()) {
+            lastId = executionContext.getLong(getExecutionContextKey(LAST_ID_KEY), START_ID);
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    protected void doOpen() {
+        page = Collections.emptyList();
+        pageIndex = 0;
+    }
+
+    @Override
+    protected T doRead() {
+        if (pageIndex >= page.size()) {
+            page = pageFetcher.apply(lastId, pageSize);
+            pageIndex = 0;
+
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+
+        T item = page.get(pageIndex++);
+        lastId = idExtractor.apply(item);
+        return item;
+    }
+
+    // 마지막 id 로 바로 이동하므로 앞의 항목을 다시 읽지 않는다
+    @Override
+    protected void jumpToItem(int itemIndex) {
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(LAST_ID_KEY), lastId);
+        }
+    }
+
+    @Override
+    protected void doClose() {
+        page = Collections.emptyList();
+        pageIndex = 0;
+    }
+}
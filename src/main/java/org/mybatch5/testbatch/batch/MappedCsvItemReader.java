@@ -0,0 +1,378 @@
+package org.mybatch5.testbatch.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mybatch5.testbatch.mapping.ColumnMapper;
+import org.mybatch5.testbatch.mapping.ColumnMapping;
+import org.mybatch5.testbatch.mapping.ColumnValues;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *  csv 파일을 메모리 맵으로 열어 바이트를 직접 나누는 reader
+ *
+ *  FlatFileItemReader 와 비교
+ *      - BufferedReader 로 한 줄을 String 으로 만들고, DelimitedLineTokenizer 가 다시 열마다 String / FieldSet 을 만든다
+ *      - 이 reader 는 한 줄의 열 경계(시작 / 끝 위치)만 재사용하는 배열에 기록하고,
+ *        ColumnMapper 가 매핑에 있는 열을 꺼낼 때만 그 열의 바이트를 문자열로 바꾼다
+ *      - 행마다 만드는 객체는 엔티티와 매핑된 열의 값 뿐이다
+ *
+ *  체크포인트
+ *      - "<name>.offset" : 다음에 읽을 행이 시작하는 파일의 바이트 위치
+ *      - "<name>.line"   : 지금까지 읽은 줄 수 (오류 메시지의 줄 번호)
+ *      - 재시작하면 헤더만 다시 읽고 저장된 위치로 바로 이동한다 (앞의 행들을 다시 읽지 않는다)
+ *
+ *  FlatFileItemReader 의 기본 설정과 같게 동작하는 부분
+ *      - 첫 줄은 헤더라서 건너뛴다
+ *      - 열은 매핑에 정의한 순서대로 읽는다 (names("id", "username", ...) 와 같다)
+ *        setBindByHeader(true) 이면 헤더의 이름으로 열 번호를 정한다
+ *      - 빈 줄과 '#' 으로 시작하는 줄은 건너뛴다
+ *      - 따옴표로 감싼 값 안의 쉼표, "" (따옴표 escape) 를 지원한다 (여러 줄에 걸친 값은 지원하지 않는다)
+ *      - 따옴표로 감싸지 않은 값의 앞뒤 공백은 제거한다
+ *      - 값이 잘못된 행은 FlatFileParseException (줄 번호, 원본 줄 포함)
+ *
+ *  구간 읽기 (CsvRangePartitioner 의 파티션 하나)
+ *      - startOffset 부터 endOffset 전까지 시작하는 줄만 읽는다 (두 위치 모두 줄의 시작이어야 한다)
+ *      - 헤더는 항상 파일의 첫 줄에서 읽는다
+ *      - 줄 번호는 구간 안에서 센 값이므로, 오류 메시지에는 줄이 시작하는 바이트 위치도 같이 남긴다
+ *
+ *  파일 전체를 한 번에 매핑하지 않고 windowSize(기본 64MB) 단위로 매핑한다 (2GB 보다 큰 파일, 32bit 주소 공간)
+ *  한 줄이 window 경계에 걸리면 그 줄의 시작 위치부터 다시 매핑한다
+ */
+@Slf4j
+public class MappedCsvItemReader<T> implements ItemStreamReader<T> {
+
+    private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final ColumnMapping<T> mapping;
+    private final long startOffset;     // 처음 읽을 줄의 위치 (0 이면 헤더 다음 줄부터)
+    private final long endOffset;       // 이 위치부터 시작하는 줄은 읽지 않는다
+    private final String OFFSET_KEY;
+    private final String LINE_KEY;
+
+    private long windowSize = DEFAULT_WINDOW_SIZE;
+    private boolean bindByHeader;
+
+    private FileChannel channel;
+    private long fileSize;
+    private MappedByteBuffer window;    // 현재 매핑된 구간
+    private long windowStart;           // window 의 0 번 바이트의 파일 위치
+    private long position;              // 다음 줄이 시작하는 파일 위치
+    private long lineNumber;            // 지금까지 읽은 줄 수 (헤더 포함)
+    private long lineOffset;            // 마지막으로 읽은 줄이 시작하는 파일 위치
+    private ColumnMapper<T> mapper;
+
+    private final CsvLine line = new CsvLine();
+
+    public MappedCsvItemReader(Path file, ColumnMapping<T> mapping, String name) {
+        this(file, mapping, name, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     *  파일의 [startOffset, endOffset) 구간을 읽는다
+     *
+     *  name
+     *      - 체크포인트 키의 접두사 ("<name>.offset", "<name>.line")
+     *      - 파티션마다 다른 이름을 주어 각자의 체크포인트를 가진다
+     */
+    public MappedCsvItemReader(Path file, ColumnMapping<T> mapping, String name, long startOffset, long endOffset) {
+        this.file = file;
+        this.mapping = mapping;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.OFFSET_KEY = name + ".offset";
+        this.LINE_KEY = name + ".line";
+    }
+
+    // 한 번에 매핑할 크기 (한 줄은 이 크기보다 짧아야 한다)
+    public void setWindowSize(long windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    // true 이면 헤더 행의 이름으로 열 번호를 정한다 (기본: 매핑에 정의한 순서)
+    public void setBindByHeader(boolean bindByHeader) {
+        this.bindByHeader = bindByHeader;
+    }
+
+    // ======= 열기 ======= //
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileSize = channel.size();
+            window = null;
+            position = 0L;
+            lineNumber = 0L;
+
+            // 헤더 - 재시작하는 경우에도 다시 읽는다 (헤더로 열 번호를 정하는 경우)
+            skipByteOrderMark();
+            if (!nextLine()) {
+                throw new ItemStreamException("CSV file has no header line: " + file);
+            }
+            mapper = bindByHeader ? mapping.bind(line.values()) : mapping.bindPositions();
+            if (startOffset > position) {
+                position = startOffset;
+            }
+
+            if (executionContext.containsKey(OFFSET_KEY)) {
+                position = executionContext.getLong(OFFSET_KEY);
+                lineNumber = executionContext.getLong(LINE_KEY);
+                log.info("Resuming CSV {} from line {} (offset: {})", file, lineNumber, position);
+            }
+
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open CSV file: " + file, e);
+        }
+    }
+
+    // ======= 읽기 ======= //
+    @Override
+    public T read() throws Exception {
+        if (channel == null) {
+            log.warn("CSV file is not opened, cannot read lines");
+            return null;
+        }
+        if (!nextLine()) {
+            return null;
+        }
+
+        T item = mapper.map(line);
+        if (item == null) {
+            throw new FlatFileParseException("Parsing error at line: " + lineNumber + " (offset " + lineOffset + ") in resource=[" + file + "]: "
+                    + mapper.describeInvalid(line), line.text(), (int) lineNumber);
+        }
+        return item;
+    }
+
+    /**
+     *  다음 데이터 줄의 열 경계를 line 에 기록한다 (빈 줄과 주석 줄은 건너뛴다)
+     *  줄이 없으면 false
+     */
+    private boolean nextLine() throws IOException {
+        while (position < fileSize && position < endOffset) {
+            mapWindow(position);
+            int start = (int) (position - windowStart);
+            int limit = window.limit();
+
+            int end = indexOf(window, (byte) '\n', start, limit);
+            if (end < 0) {
+                if (windowStart + limit < fileSize) {
+                    // window 끝에서 잘린 줄 - 줄의 시작부터 다시 매핑한다
+                    if (start == 0) {
+                        throw new ItemStreamException("CSV line at offset " + position + " is longer than window size " + windowSize + ": " + file);
+                    }
+                    window = null;
+                    continue;
+                }
+                end = limit; // 줄바꿈 없이 끝나는 마지막 줄
+                position = windowStart + end;
+            } else {
+                position = windowStart + end + 1;
+            }
+            lineNumber++;
+            lineOffset = windowStart + start;
+
+            int contentEnd = end;
+            if (contentEnd > start && window.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd == start || window.get(start) == '#') {
+                continue;
+            }
+
+            if (!line.tokenize(window, start, contentEnd)) {
+                throw new FlatFileParseException("Unterminated quoted field at line: " + lineNumber + " (offset " + lineOffset + ") in resource=[" + file + "]",
+                        line.text(), (int) lineNumber);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // position 이 현재 window 안에 있지 않으면 position 부터 다시 매핑한다
+    private void mapWindow(long position) throws IOException {
+        if (window != null && position >= windowStart && position < windowStart + window.limit()) {
+            return;
+        }
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, fileSize - position));
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (fileSize >= 3) {
+            mapWindow(0L);
+            if (window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                position = 3L;
+            }
+        }
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ======= 진행상황 저장 ======= //
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(OFFSET_KEY, position);
+        executionContext.putLong(LINE_KEY, lineNumber);
+    }
+
+    // ======= 닫기 ======= //
+    @Override
+    public void close() throws ItemStreamException {
+        try {
+            if (channel != null) {
+                channel.close(); // 매핑된 구간은 GC 가 해제한다
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        } finally {
+            channel = null;
+            window = null;
+        }
+    }
+
+    /**
+     *  현재 줄의 열 경계 (window 안의 위치)
+     *  다음 줄을 읽으면 덮어쓰므로 ColumnMapper.map() 이 끝난 뒤에는 사용하지 않는다
+     */
+    private static final class CsvLine implements ColumnValues {
+
+        private MappedByteBuffer buffer;
+        private int lineStart;
+        private int lineEnd;
+        private int count;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private boolean[] escaped = new boolean[8]; // 따옴표 안에 "" 가 있는 열
+        private boolean[] quoted = new boolean[8];
+        private byte[] scratch = new byte[64];
+
+        // 따옴표가 닫히지 않으면 false
+        boolean tokenize(MappedByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.lineStart = start;
+            this.lineEnd = end;
+            this.count = 0;
+
+            int i = start;
+            while (true) {
+                grow();
+                if (i < end && buffer.get(i) == '"') {
+                    int j = i + 1;
+                    boolean hasEscape = false;
+                    while (j < end) {
+                        if (buffer.get(j) == '"') {
+                            if (j + 1 < end && buffer.get(j + 1) == '"') {
+                                hasEscape = true;
+                                j += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        j++;
+                    }
+                    if (j >= end) {
+                        return false;
+                    }
+                    set(i + 1, j, true, hasEscape);
+                    i = j + 1;
+                    while (i < end && buffer.get(i) != ',') {
+                        i++; // 닫는 따옴표와 쉼표 사이의 값은 무시한다
+                    }
+                } else {
+                    int j = i;
+                    while (j < end && buffer.get(j) != ',') {
+                        j++;
+                    }
+                    set(i, j, false, false);
+                    i = j;
+                }
+
+                if (i >= end) {
+                    return true;
+                }
+                i++; // 쉼표
+            }
+        }
+
+        private void set(int start, int end, boolean isQuoted, boolean hasEscape) {
+            starts[count] = start;
+            ends[count] = end;
+            quoted[count] = isQuoted;
+            escaped[count] = hasEscape;
+            count++;
+        }
+
+        private void grow() {
+            if (count < starts.length) {
+                return;
+            }
+            int size = starts.length * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            quoted = Arrays.copyOf(quoted, size);
+            escaped = Arrays.copyOf(escaped, size);
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= count) {
+                return null;
+            }
+
+            int start = starts[index];
+            int end = ends[index];
+            if (!quoted[index]) {
+                while (start < end && buffer.get(start) == ' ') {
+                    start++;
+                }
+                while (end > start && buffer.get(end - 1) == ' ') {
+                    end--;
+                }
+            }
+
+            String value = decode(start, end);
+            return escaped[index] ? value.replace("\"\"", "\"") : value;
+        }
+
+        // 헤더 행
+        String[] values() {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = get(i);
+            }
+            return values;
+        }
+
+        // 오류 메시지용 원본 줄
+        String text() {
+            return decode(lineStart, lineEnd);
+        }
+
+        private String decode(int start, int end) {
+            int length = end - start;
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,55 +1,86 @@
 package org.mybatch5.testbatch.batch;
 
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.entity.WinEntityInsertSetter;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
+import org.mybatch5.testbatch.listener.RejectedRowCsvWriter;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamReader;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 
 @Configuration
 public class ReadExcelJDBCWriterBatch {
 
+    private static final String EXCEL_FILE_PATH = "C:\\Users\\USER\\OneDrive\\excelReaderJDBCwrite.xlsx";
+
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final DataSource dataSource;
+    private final TaskExecutor taskExecutor; // 파티션 worker 를 실행할 스레드 풀
+    private final long progressIntervalMillis; // ExcelReader 진행 로그 간격 (batch.progress.interval-millis, 기본 10초)
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+    private final Path rejectDir;           // 잘못된 행을 기록할 reject 파일 폴더 (batch.reject.dir, 기본 ./rejects)
+    private final int rejectSkipLimit;      // step 하나에서 허용하는 reject 행 수 (batch.reject.skip-limit, 기본 1000) - 넘으면 step 실패
 
     public ReadExcelJDBCWriterBatch(JobRepository jobRepository,
-                                    PlatformTransactionManager platformTransactionManager,
-                                    @Qualifier("dataDBSource") DataSource dataSource) {
+                                    @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                                    @Qualifier("dataDBSource") DataSource dataSource,
+                                    @Qualifier("batchTaskExecutor") TaskExecutor taskExecutor,
+                                    @Value("${batch.progress.interval-millis:10000}") long progressIntervalMillis,
+                                    BatchMetricsListener batchMetricsListener,
+                                    @Value("${batch.reject.dir:rejects}") String rejectDir,
+                                    @Value("${batch.reject.skip-limit:1000}") int rejectSkipLimit) {
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
         this.dataSource = dataSource;
+        this.taskExecutor = taskExecutor;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.batchMetricsListener = batchMetricsListener;
+        this.rejectDir = Path.of(rejectDir);
+        this.rejectSkipLimit = rejectSkipLimit;
     }
 
     // job 정의
     @Bean
     public Job excelReadJob() {
         return new JobBuilder("excelReadJob", jobRepository)
-                .start(excelReadStep())
+                .start(excelReadStep(null))
                 .build();
     }
 
     // step 정의
     @Bean
-    public Step excelReadStep() {
-        return new StepBuilder("excelReadStep", jobRepository)
-                .<WinEntity, WinEntity>chunk(10, platformTransactionManager)
+    @JobScope
+    public Step excelReadStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+        return batchMetricsListener.applyTo(new StepBuilder("excelReadStep", jobRepository)
+                .<WinEntity, WinEntity>chunk(chunkSize, platformTransactionManager)
                 .reader(excelReader())
                 .processor(excelProcessor())
                 .writer(excelWriter())
+                .faultTolerant()
+                .skip(RejectedRowException.class)             // 값이 잘못된 행은 건너뛰고
+                .skipLimit(rejectSkipLimit)
+                .listener(excelRejectWriter(null, null, null)) // reject 파일에 기록한다
+                .stream(excelRejectWriter(null, null, null)))
                 .build();
     }
 
@@ -58,13 +89,32 @@ public class ReadExcelJDBCWriterBatch {
     @Bean
     public ItemStreamReader<WinEntity> excelReader() {
         try {
-            return new ExcelReader("C:\\Users\\USER\\OneDrive\\excelReaderJDBCwrite.xlsx");
+            ExcelReader reader = new ExcelReader(EXCEL_FILE_PATH);
+            reader.setProgressIntervalMillis(progressIntervalMillis); // 진행 로그 간격
+            reader.setRejectInvalidRows(true);                        // 잘못된 행은 RejectedRowException -> skip
+            return reader;
         } catch (Exception e) {
             throw new ItemStreamException("Failed to open EXCEL FILE", e);
         }
 
     }
 
+    /**
+     *  reject 파일 정의
+     *      - {batch.reject.dir}/{job 이름}-{jobInstance id}-{step 이름}.csv
+     *      - jobInstance 기준이라 재시작해도 같은 파일에 이어서 쓴다
+     *      - 파티션 worker 는 step 이름이 "excelReadStep:partition0" 처럼 달라서 파일이 나뉜다 (":" 는 "_" 로 바꾼다)
+     */
+    @Bean
+    @StepScope
+    public RejectedRowCsvWriter excelRejectWriter(
+            @Value("#{stepExecution.jobExecution.jobInstance.jobName}") String jobName,
+            @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId,
+            @Value("#{stepExecution.stepName}") String stepName) {
+        String fileName = jobName + "-" + jobInstanceId + "-" + stepName.replace(':', '_') + ".csv";
+        return new RejectedRowCsvWriter(rejectDir.resolve(fileName));
+    }
+
     // processor 정의
     @Bean
     public ItemProcessor<WinEntity, WinEntity> excelProcessor() {
@@ -76,11 +126,82 @@ public class ReadExcelJDBCWriterBatch {
     @Bean
     public JdbcBatchItemWriter<WinEntity> excelWriter() {
 
-        String sql = "INSERT INTO WinEntity (username, win, reward) VALUES (:username, :win, :reward)";
         return new JdbcBatchItemWriterBuilder<WinEntity>()
                 .dataSource(dataSource)
-                .sql(sql)
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .sql(WinEntityInsertSetter.SQL)
+                .itemPreparedStatementSetter(new WinEntityInsertSetter())
+                .build();
+    }
+
+    /**
+     *  ===== 파티셔닝 버전 =====
+     *  excelReadStep 은 첫 번째 시트만 하나의 스레드에서 읽는다
+     *  excelReadPartitionJob 은 ExcelSheetPartitioner 로 모든 시트를 시트별 / rowsPerPartition 행 구간별로 나누고
+     *  각 구간을 worker step 으로 만들어 batchTaskExecutor 에서 동시에 읽고 WinEntity 에 INSERT 한다
+     *
+     *  rowsPerPartition
+     *      - job 파라미터 "rowsPerPartition" 으로 전달 (없으면 100000)
+     *  gridSize
+     *      - job 파라미터 "gridSize" 로 전달 (없으면 4)
+     *      - 파티션은 최대 gridSize 개이고, 구간이 더 많으면 한 파티션이 여러 구간을 차례대로 읽는다
+     *        (구간 수만큼 파티션을 만들면 batchTaskExecutor 의 스레드 + 대기열을 넘어서 TaskRejectedException 으로 실패한다)
+     *      - 동시에 실행되는 worker 수는 batchTaskExecutor 의 스레드 수(batch.executor.pool-size)로 제한된다
+     *
+     *  각 worker 는 자신의 StepExecution 에 구간 번호("readExcel.range")와 구간별 체크포인트 키("readExcel.sheet0-range1.current.row.number")를 저장하므로
+     *  재시작하면 실패한 파티션만 마지막 커밋 위치부터 다시 실행된다
+     */
+    @Bean
+    public Job excelReadPartitionJob() {
+        return new JobBuilder("excelReadPartitionJob", jobRepository)
+                .start(excelReadPartitionStep(null, null))
+                .build();
+    }
+
+    // manager step 정의
+    @Bean
+    @JobScope
+    public Step excelReadPartitionStep(@Value("#{jobParameters['gridSize'] ?: 4}") Integer gridSize,
+                                       @Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+        return new StepBuilder("excelReadPartitionStep", jobRepository)
+                .partitioner("excelReadStep", excelSheetPartitioner(null)) // worker step 이름, 시트 / 행 구간을 나눌 partitioner
+                .step(excelReadWorkerStep(chunkSize)) // 각 파티션에서 실행할 step
+                .gridSize(gridSize)                   // 파티션 수
+                .taskExecutor(taskExecutor)           // 파티션을 동시에 실행할 스레드 풀
                 .build();
     }
+
+    // partitioner 정의
+    @Bean
+    @JobScope
+    public ExcelSheetPartitioner excelSheetPartitioner(@Value("#{jobParameters['rowsPerPartition'] ?: 100000}") Integer rowsPerPartition) {
+        return new ExcelSheetPartitioner(EXCEL_FILE_PATH, rowsPerPartition);
+    }
+
+    // worker step 정의 - manager step 이 결정한 chunkSize 로 직접 생성한다 (SixthBatch 의 worker 와 같은 방식)
+    private Step excelReadWorkerStep(int chunkSize) {
+        return batchMetricsListener.applyTo(new StepBuilder("excelReadStep", jobRepository)
+                .<WinEntity, WinEntity>chunk(chunkSize, platformTransactionManager)
+                .reader(excelPartitionReader(null))
+                .processor(excelProcessor())
+                .writer(excelWriter())
+                .faultTolerant()
+                .skip(RejectedRowException.class)
+                .skipLimit(rejectSkipLimit)
+                .listener(excelRejectWriter(null, null, null))
+                .stream(excelRejectWriter(null, null, null)))
+                .build();
+    }
+
+    // worker reader 정의 - ExcelSheetPartitioner 가 파티션의 ExecutionContext 에 넣어준 구간들을 차례대로 읽는다
+    @Bean
+    @StepScope
+    public ExcelRangeListItemReader excelPartitionReader(@Value("#{stepExecution}") StepExecution stepExecution) {
+        ExcelRangeListItemReader reader = new ExcelRangeListItemReader(
+                EXCEL_FILE_PATH,
+                ExcelSheetPartitioner.ranges(stepExecution.getExecutionContext()),
+                "readExcel");
+        reader.setProgressIntervalMillis(progressIntervalMillis);
+        reader.setRejectInvalidRows(true);
+        return reader;
+    }
 }
@@ -0,0 +1,51 @@
+package org.mybatch5.testbatch.batch;
+
+/**
+ *  입력 행의 값이 올바르지 않아 처리하지 않는 행
+ *
+ *  reader 가 이 예외를 던지면 faultTolerant step 의 skip(RejectedRowException.class) 로 건너뛰고
+ *  SkipListener(RejectedRowCsvWriter) 가 행 위치, 이유, 원본 값을 reject 파일에 기록한다
+ *
+ *  rawValues
+ *      - 셀에 들어있던 원본 문자열 (타입이 맞지 않아도 그대로 남긴다)
+ */
+public class RejectedRowException extends RuntimeException {
+
+    private final String source;
+    private final int rowNum;
+    private final ExcelReader.SkipReason reason;
+    private final String detail;
+    private final String[] rawValues;
+
+    public RejectedRowException(String source, int rowNum, ExcelReader.SkipReason reason, String detail, String... rawValues) {
+        super(source + " row " + rowNum + " rejected (" + reason + "): " + detail, null, false, false); // skip 경로에서는 stack trace 가 필요 없다
+        this.source = source;
+        this.rowNum = rowNum;
+        this.reason = reason;
+        this.detail = detail;
+        this.rawValues = rawValues;
+    }
+
+    // 행을 읽은 곳 (예: "sheet0")
+    public String getSource() {
+        return source;
+    }
+
+    // 0 부터 시작하는 행 번호
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public ExcelReader.SkipReason getReason() {
+        return reason;
+    }
+
+    // 어떤 값이 잘못되었는지 (예: "win: expected LONG but was 'abc'")
+    public String getDetail() {
+        return detail;
+    }
+
+    public String[] getRawValues() {
+        return rawValues;
+    }
+}
@@ -1,33 +1,52 @@
 package org.mybatch5.testbatch.batch;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManagerFactory;
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
 import org.mybatch5.testbatch.repository.WinRepository;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.data.RepositoryItemReader;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.data.RepositoryItemWriter;
-import org.springframework.batch.item.data.builder.RepositoryItemReaderBuilder;
 import org.springframework.batch.item.data.builder.RepositoryItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.Collections;
-import java.util.Map;
+import javax.sql.DataSource;
 
 @Configuration
-@RequiredArgsConstructor
 public class SecondBatch {
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final WinRepository winRepository;
+    private final DataSource dataSource;                     // writeMode=stateless 에서 사용하는 비즈니스 DB
+    private final EntityManagerFactory entityManagerFactory; // writeMode=stateless 에서 사용하는 비즈니스 DB EntityManagerFactory
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
+
+    public SecondBatch(JobRepository jobRepository,
+                       @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                       WinRepository winRepository,
+                       @Qualifier("dataDBSource") DataSource dataSource,
+                       @Qualifier("dataEntityManager") EntityManagerFactory entityManagerFactory,
+                       BatchMetricsListener batchMetricsListener) {
+        this.jobRepository = jobRepository;
+        this.platformTransactionManager = platformTransactionManager;
+        this.winRepository = winRepository;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchMetricsListener = batchMetricsListener;
+    }
 
     /**
      *  === job 정의 ===
@@ -35,46 +54,55 @@ public class SecondBatch {
     @Bean
     public Job secondJob() {
         return new JobBuilder("secondJob", jobRepository) // job 설정
-                .start(secondStep())        // 정의된 스텝 등록
+                .start(secondStep(null, null))    // 정의된 스텝 등록
 //                .next(다음 스텝)           // 추가적인 스템을 정의하면 이어서 실행시킬 수있다
                 .build();           // job 생성
     }
 
     /**
      *  === step 정의 ===
-     *  <WinEntity, WinEntity> chunk(10, platformTransactionManager)
+     *  <WinEntity, WinEntity> chunk(chunkSize, platformTransactionManager)
      *      - <WinEntity, WinEntity>: <입력타입, 출력타입> 지정
-     *      - chunk(10, platformTransactionManager): 청크방식(청크사이즈, 트랜잭션매니저)
+     *      - chunk(chunkSize, platformTransactionManager): 청크방식(청크사이즈, 트랜잭션매니저)
+     *      - chunkSize: job 파라미터 "chunkSize" (BatchSizes.CHUNK_SIZE)
+     *
+     *  writeMode (job 파라미터, 기본값 "jpa")
+     *      "jpa"       - winWriter() : WinRepository.save 를 한 건씩 호출 (merge)
+     *      "stateless" - winStatelessWriter() : Hibernate StatelessSession 으로 청크 전체를 batch UPDATE
      */
     @Bean
-    public Step secondStep() {
-        return new StepBuilder("secondStep", jobRepository) // step 설정
-                .<WinEntity, WinEntity> chunk(10, platformTransactionManager) // 청크 방식 처리
-                .reader(winReader())        // reader 등록
+    @JobScope
+    public Step secondStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize,
+                           @Value("#{jobParameters['writeMode'] ?: 'jpa'}") String writeMode) {
+
+        ItemWriter<WinEntity> writer = "stateless".equalsIgnoreCase(writeMode)
+                ? winStatelessWriter()
+                : winWriter();
+
+        return batchMetricsListener.applyTo(new StepBuilder("secondStep", jobRepository) // step 설정
+                .<WinEntity, WinEntity> chunk(chunkSize, platformTransactionManager) // 청크 방식 처리
+                .reader(winReader(null))        // reader 등록
                 .processor(trueProcessor()) // processor 등록
-                .writer(winWriter())        // write 등록
+                .writer(writer))            // write 등록 (writeMode 에 따라 선택)
                 .build();   // step 생성
     }
 
     /**
      *  === reader 정의 ===
-     *  methodName("findByWinGreaterThanEqual")
-     *      - 레포지토리의 findByWinGreaterThanEqual 메소드를 호출한다
-     *  
-     *  arguments(Collections.singletonList(10L))
-     *      - 위의에서 호출한 findByWinGreaterThanEqual 메소드의 파라미터 값으로 Long 타입 10 을 사용한다
-     *      - 파라미터값으로 여러개의 값을 동시에 보낼 수 있기 때문에 Collections.singletonList(10L) 이렇게 보낸다
+     *  findByWinGreaterThanEqualAndIdGreaterThanOrderByIdAsc(10L, lastId, Limit.of(size))
+     *      - win 이 10 이상인 행 중에서 마지막으로 읽은 id 다음부터 size 건을 읽는다
+     *      - findByWinGreaterThanEqual(Long, Pageable) 은 LIMIT/OFFSET 쿼리라 뒤쪽 페이지일수록 느려지기 때문에
+     *        keyset 방식(KeysetItemReader)으로 읽는다
      */
     @Bean // read
-    public RepositoryItemReader<WinEntity> winReader() {
-        return new RepositoryItemReaderBuilder<WinEntity>() // reader 설정
-                .name("winReader")          // reader 이름 정의
-                .pageSize(10)               // 한 번에 10개씩 처리
-                .methodName("findByWinGreaterThanEqual")    // winRepository 에서 "findByWinGreaterThanEqual" 의 메소드 호출
-                .arguments(Collections.singletonList(10L))  // 여러 파라미터값을 한번에 보낼 수 있기 때문에 파라미터를 리스트 형태로 보낼 수 있다
-                .repository(winRepository)                  // winRepository 저장소 사용
-                .sorts(Map.of("id", Sort.Direction.ASC))    // 정렬 방식
-                .build();   // reader 생성
+    @StepScope
+    public KeysetItemReader<WinEntity> winReader(@Value(BatchSizes.PAGE_SIZE) Integer pageSize) {
+        return new KeysetItemReader<>(
+                "winReader",    // reader 이름 정의
+                pageSize,       // 한 번에 pageSize 개씩 처리
+                (lastId, size) -> winRepository.findByWinGreaterThanEqualAndIdGreaterThanOrderByIdAsc(10L, lastId, Limit.of(size)),
+                WinEntity::getId
+        );
     }
 
 
@@ -105,4 +133,13 @@ public class SecondBatch {
                 .methodName("save")                     // 레포지토리에 정의된 메소드명 save 호출
                 .build();       // write 생성
     }
+
+    /**
+     *  === writer 정의 (StatelessSession) ===
+     *  merge 와 dirty checking 없이 청크의 WinEntity 를 UPDATE 문 batch 하나로 보낸다
+     */
+    @Bean
+    public StatelessSessionItemWriter<WinEntity> winStatelessWriter() {
+        return new StatelessSessionItemWriter<>(entityManagerFactory, dataSource);
+    }
 }
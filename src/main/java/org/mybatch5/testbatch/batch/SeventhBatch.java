@@ -1,22 +1,27 @@
 package org.mybatch5.testbatch.batch;
 
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.entity.WinRewardRowMapper;
+import org.mybatch5.testbatch.entity.WinRewardUpdateSetter;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
@@ -28,39 +33,84 @@ public class SeventhBatch {
     private final JobRepository jobRepository;
     private final PlatformTransactionManager platformTransactionManager;
     private final DataSource dataSource;
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
 
     public SeventhBatch(JobRepository jobRepository,
-                        PlatformTransactionManager platformTransactionManager,
-                        @Qualifier("dataDBSource") DataSource dataSource) {
+                        @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                        @Qualifier("dataDBSource") DataSource dataSource,
+                        BatchMetricsListener batchMetricsListener) {
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
         this.dataSource = dataSource;
+        this.batchMetricsListener = batchMetricsListener;
     }
 
     // === job 정의 === //
     @Bean
     public Job seventhJob() {
         return new JobBuilder("seventhJob", jobRepository)
-                .start(seventhStep())
+                .start(seventhStep(null, null))
                 .build();
     }
 
-    // === step 정의 === //
+    /**
+     *  === job 정의 (SQL 구간 UPDATE) ===
+     *  seventhJob 과 같은 결과(win >= 10 이면 reward = true)를 행을 읽지 않고 UPDATE 문으로 처리한다
+     *  seventhJob / secondJob 은 비교를 위해 그대로 둔다
+     */
     @Bean
-    public Step seventhStep() {
+    public Job seventhSqlJob() {
+        return new JobBuilder("seventhSqlJob", jobRepository)
+                .start(seventhSqlStep(null))
+                .build();
+    }
+
+    /**
+     *  === step 정의 ===
+     *  readMode (job 파라미터, 기본값 "paging")
+     *      "paging" - seventhReader() : JdbcPagingItemReader
+     *      "cursor" - seventhCursorReader() : 쿼리 한 번으로 연 커서에서 스트리밍으로 읽는다
+     */
+    @Bean
+    @JobScope
+    public Step seventhStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize,
+                            @Value("#{jobParameters['readMode'] ?: 'paging'}") String readMode) {
 
-        return new StepBuilder("seventhStep", jobRepository)
-                .<WinEntity, WinEntity>chunk(10, platformTransactionManager)
-                .reader(seventhReader())
+        ItemStreamReader<WinEntity> reader = "cursor".equalsIgnoreCase(readMode)
+                ? seventhCursorReader()
+                : seventhReader(null);
+
+        return batchMetricsListener.applyTo(new StepBuilder("seventhStep", jobRepository)
+                .<WinEntity, WinEntity>chunk(chunkSize, platformTransactionManager)
+                .reader(reader)
                 .processor(seventhProcessor())
-                .writer(seventhWriter())
+                .writer(seventhWriter()))
+                .build();
+    }
+
+
+    /**
+     *  === step 정의 (SQL 구간 UPDATE) ===
+     *  sliceSize
+     *      - job 파라미터 "sliceSize" (기본값 10000) 만큼의 id 구간을 UPDATE 문 한 번으로 처리하고 커밋한다
+     *      - 마지막으로 처리한 id 는 step 의 ExecutionContext 에 저장되어 재시작 시 이어서 실행된다
+     */
+    @Bean
+    @JobScope
+    public Step seventhSqlStep(@Value("#{jobParameters['sliceSize'] ?: 10000}") Long sliceSize) {
+
+        String sql = "UPDATE WinEntity SET reward = true WHERE win >= 10 AND id > ? AND id <= ?";
+
+        return batchMetricsListener.applyTo(new StepBuilder("seventhSqlStep", jobRepository)
+                .tasklet(new IdRangeUpdateTasklet(dataSource, "WinEntity", "id", sql, sliceSize), platformTransactionManager))
                 .build();
     }
 
 
     // === reader 정의 === //
     @Bean
-    public JdbcPagingItemReader<WinEntity> seventhReader() {
+    @StepScope
+    public JdbcPagingItemReader<WinEntity> seventhReader(@Value(BatchSizes.PAGE_SIZE) Integer pageSize) {
 
         return new JdbcPagingItemReaderBuilder<WinEntity>()
                 .name("seventhReader")
@@ -69,11 +119,25 @@ public class SeventhBatch {
                 .fromClause("FROM WinEntity")
                 .whereClause("WHERE win >= 10")
                 .sortKeys(Map.of("id", Order.ASCENDING))
-                .rowMapper(new BeanPropertyRowMapper<>(WinEntity.class)) // 자동 매핑 // 복잡한 구조가 필요한경우 커스텀해서 사용하느게 좋음
-                .pageSize(10)
+                .rowMapper(new WinRewardRowMapper()) // 직접 매핑 (BeanPropertyRowMapper 는 행마다 리플렉션으로 값을 넣는다)
+                .pageSize(pageSize)
                 .build();
     }
 
+    // === reader 정의 (cursor) - SELECT 는 step 에서 한 번, 재시작은 마지막 id 다음부터 === //
+    @Bean
+    @StepScope
+    public KeysetCursorItemReader<WinEntity> seventhCursorReader() {
+
+        return new KeysetCursorItemReader<>(
+                "seventhCursorReader",
+                dataSource,
+                "SELECT id, win, reward FROM WinEntity WHERE win >= 10 AND id > ? ORDER BY id",
+                new WinRewardRowMapper(),
+                WinEntity::getId
+        );
+    }
+
     // === processor 정의 === //
     @Bean
     public ItemProcessor<WinEntity, WinEntity> seventhProcessor() {
@@ -87,12 +151,10 @@ public class SeventhBatch {
     @Bean
     public JdbcBatchItemWriter<WinEntity> seventhWriter() {
 
-        String sql = "UPDATE WinEntity SET reward = :reward WHERE id = :id";
-
         return new JdbcBatchItemWriterBuilder<WinEntity>()
                 .dataSource(dataSource)
-                .sql(sql)
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                .sql(WinRewardUpdateSetter.SQL) // UPDATE WinEntity SET reward = ? WHERE id = ?
+                .itemPreparedStatementSetter(new WinRewardUpdateSetter())
                 .build();
     }
 
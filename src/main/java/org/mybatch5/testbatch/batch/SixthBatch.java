@@ -2,25 +2,31 @@ package org.mybatch5.testbatch.batch;
 
 import lombok.RequiredArgsConstructor;
 import org.mybatch5.testbatch.entity.AfterEntity;
+import org.mybatch5.testbatch.entity.AfterEntityInsertSetter;
 import org.mybatch5.testbatch.entity.BeforeEntity;
 import org.mybatch5.testbatch.entity.CustomBeforeRowMapper;
+import org.mybatch5.testbatch.listener.BatchMetricsListener;
 import org.mybatch5.testbatch.repository.AfterRepository;
 import org.mybatch5.testbatch.repository.BeforeRepository;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
@@ -33,13 +39,19 @@ public class SixthBatch {
     private final PlatformTransactionManager platformTransactionManager;
 
     private final DataSource dataSource; // 운영 데이터베이스
+    private final TaskExecutor taskExecutor; // 파티션 worker 를 실행할 스레드 풀
+    private final BatchMetricsListener batchMetricsListener; // step 단계별 시간 / 건수 metric
 
     public SixthBatch(JobRepository jobRepository,
-                      PlatformTransactionManager platformTransactionManager,
-                      @Qualifier("dataDBSource") DataSource dataSource) {
+                      @Qualifier("chunkTransactionManager") PlatformTransactionManager platformTransactionManager,
+                      @Qualifier("dataDBSource") DataSource dataSource,
+                      @Qualifier("batchTaskExecutor") TaskExecutor taskExecutor,
+                      BatchMetricsListener batchMetricsListener) {
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
         this.dataSource = dataSource;
+        this.taskExecutor = taskExecutor;
+        this.batchMetricsListener = batchMetricsListener;
     }
 
     /**
@@ -50,19 +62,30 @@ public class SixthBatch {
     @Bean
     public Job sixthJob() {
         return new JobBuilder("sixthJob", jobRepository)
-                .start(sixthStep())
+                .start(sixthStep(null, null))
                 .build();
     }
 
-    // === step 정의 === //
+    /**
+     *  === step 정의 ===
+     *  readMode (job 파라미터, 기본값 "paging")
+     *      "paging" - sixthReader() : 페이지마다 쿼리를 다시 실행하는 JdbcPagingItemReader
+     *      "cursor" - sixthCursorReader() : 쿼리 한 번으로 연 커서에서 스트리밍으로 읽는다
+     */
     @Bean
-    public Step sixthStep() {
+    @JobScope
+    public Step sixthStep(@Value(BatchSizes.CHUNK_SIZE) Integer chunkSize,
+                          @Value("#{jobParameters['readMode'] ?: 'paging'}") String readMode) {
+
+        ItemStreamReader<BeforeEntity> reader = "cursor".equalsIgnoreCase(readMode)
+                ? sixthCursorReader()
+                : sixthReader(null);
 
-        return new StepBuilder("sixthStep", jobRepository)
-                .<BeforeEntity, AfterEntity>chunk(10, platformTransactionManager)
-                .reader(sixthReader())
+        return batchMetricsListener.applyTo(new StepBuilder("sixthStep", jobRepository)
+                .<BeforeEntity, AfterEntity>chunk(chunkSize, platformTransactionManager)
+                .reader(reader)
                 .processor(sixthProcessor())
-                .writer(sixthWriter())
+                .writer(sixthWriter()))
                 .build();
     }
 
@@ -92,10 +115,13 @@ public class SixthBatch {
      *      - SQL 의 결과물 ResultSet 을 BeforeEntity 객체로 변환하는 역할을 한다
      *      - 
      *
+     *  pageSize(pageSize)
+     *      - job 파라미터 "pageSize" (없으면 청크 크기) - BatchSizes.PAGE_SIZE
      *
      */
     @Bean
-    public JdbcPagingItemReader<BeforeEntity> sixthReader() {
+    @StepScope
+    public JdbcPagingItemReader<BeforeEntity> sixthReader(@Value(BatchSizes.PAGE_SIZE) Integer pageSize) {
 
         return new JdbcPagingItemReaderBuilder<BeforeEntity>() // reader 설정
                 .name("sixthReader")        // reader 이름 설정
@@ -104,10 +130,28 @@ public class SixthBatch {
                 .fromClause("FROM BeforeEntity")        // sql from 절 설정
                 .sortKeys(Map.of("id", Order.ASCENDING)) // 정렬 기준
                 .rowMapper(new CustomBeforeRowMapper()) // SQL 결과물 ResultSet 객체를 BeforeEntity 객체로 변환
-                .pageSize(10)       // 페이지 크기
+                .pageSize(pageSize) // 페이지 크기
                 .build();           // reader 생성
     }
 
+    /**
+     *  === reader 정의 (cursor) ===
+     *  sixthReader 와 같은 행을 같은 순서로 읽지만 SELECT 는 step 에서 한 번만 실행한다
+     *  재시작하면 마지막으로 커밋된 청크의 id 다음부터 커서를 다시 연다 (KeysetCursorItemReader 참고)
+     */
+    @Bean
+    @StepScope
+    public KeysetCursorItemReader<BeforeEntity> sixthCursorReader() {
+
+        return new KeysetCursorItemReader<>(
+                "sixthCursorReader",
+                dataSource,
+                "SELECT id, username FROM BeforeEntity WHERE id > ? ORDER BY id",
+                new CustomBeforeRowMapper(),
+                BeforeEntity::getId
+        );
+    }
+
     // === processor 정의 === //
     @Bean
     public ItemProcessor<BeforeEntity, AfterEntity> sixthProcessor() {
@@ -130,31 +174,104 @@ public class SixthBatch {
      *      - 여러 개의 데이터를 Batch 단위로 한꺼번에 insert 한다
      *      - 효율적으로 일괄 저장 (배치 처리) 한다
      *
-     *  String sql = "INSERT INTO AfterEntity (username) VALUES (:username)";
-     *  sql(sql)
-     *      - sql 문이 작성된 String 을 설정
-     *      - :username: Named Parameter 방식으로 값을 바인딩 한다
-     *  
-     *  itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-     *      - 객체의 필드값을 SQL 의 Named Parameter 와 매핑하는 역할을 한다
-     *      - AfterEntity 객체의 필드 이름을 SQL :parameter 와 자동으로 매칭한다
-     *      - 내부적으로 실행되는 메소드
-     *          MapSqlParameterSource paramMap = new MapSqlParameterSource();
-     *          ParamMap.addValue("username", afterEntity.getUsername());
-     *  
+     *  sql(AfterEntityInsertSetter.SQL)
+     *      - "INSERT INTO AfterEntity (username) VALUES (?)"
+     *      - ? : 위치(Positional) 방식으로 값을 바인딩 한다
+     *
+     *  itemPreparedStatementSetter(new AfterEntityInsertSetter())
+     *      - ps.setString(1, afterEntity.getUsername()) 처럼 PreparedStatement 에 직접 값을 넣는다
+     *      - BeanPropertyItemSqlParameterSourceProvider 는 행마다 BeanPropertySqlParameterSource 를 만들고
+     *        리플렉션으로 필드를 찾은 뒤 :username 을 ? 로 바꾼 위치에 다시 매핑한다 (행마다 객체 생성 + 리플렉션)
+     *
      */
     @Bean
     public JdbcBatchItemWriter<AfterEntity> sixthWriter() {
 
-        String sql = "INSERT INTO AfterEntity (username) VALUES (:username)";
-
         return new JdbcBatchItemWriterBuilder<AfterEntity>() // writer 설정
                 .dataSource(dataSource)         // 접근 데이터소스
-                .sql(sql)           // sql 설정
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>()) // 객체의 필드값을 sql 에 매핑해주는 객체 provider
+                .sql(AfterEntityInsertSetter.SQL)   // sql 설정
+                .itemPreparedStatementSetter(new AfterEntityInsertSetter()) // 객체의 필드값을 ? 위치에 넣어주는 setter
                 .build();   // writer 생성
     }
 
+    /**
+     *  ===== 파티셔닝 버전 =====
+     *  sixthStep 은 하나의 스레드에서 BeforeEntity 전체를 읽는다
+     *  sixthPartitionJob 은 id 범위를 gridSize 개로 나누고, 각 범위를 worker step 으로 만들어 batchTaskExecutor 에서 동시에 실행한다
+     *  각 worker 는 자신의 reader 를 가지고, processor / writer(sixthWriter) 는 상태가 없으므로 같이 사용한다
+     *
+     *  gridSize
+     *      - job 파라미터 "gridSize" 로 전달 (없으면 4)
+     *      - 동시에 실행되는 worker 수는 batchTaskExecutor 의 스레드 수(batch.executor.pool-size)로 제한된다
+     */
+    @Bean
+    public Job sixthPartitionJob() {
+        return new JobBuilder("sixthPartitionJob", jobRepository)
+                .start(sixthPartitionStep(null, null))
+                .build();
+    }
+
+    // === manager step 정의 === //
+    @Bean
+    @JobScope
+    public Step sixthPartitionStep(@Value("#{jobParameters['gridSize'] ?: 4}") Integer gridSize,
+                                   @Value(BatchSizes.CHUNK_SIZE) Integer chunkSize) {
+
+        return new StepBuilder("sixthPartitionStep", jobRepository)
+                .partitioner("sixthWorkerStep", sixthPartitioner()) // worker step 이름, 범위를 나눌 partitioner
+                .step(sixthWorkerStep(chunkSize)) // 각 파티션에서 실행할 step
+                .gridSize(gridSize)         // 파티션 수
+                .taskExecutor(taskExecutor) // 파티션을 동시에 실행할 스레드 풀
+                .build();
+    }
+
+    // === partitioner 정의 === //
+    @Bean
+    public IdRangePartitioner sixthPartitioner() {
+        return new IdRangePartitioner(dataSource, "BeforeEntity", "id");
+    }
+
+    /**
+     *  === worker step 정의 ===
+     *  worker step 은 파티션 스레드에서 실행되기 때문에 @JobScope 빈으로 만들지 않고
+     *  manager step 이 결정한 chunkSize 로 직접 생성한다
+     */
+    private Step sixthWorkerStep(int chunkSize) {
+
+        return batchMetricsListener.applyTo(new StepBuilder("sixthWorkerStep", jobRepository)
+                .<BeforeEntity, AfterEntity>chunk(chunkSize, platformTransactionManager)
+                .reader(sixthPartitionReader(null, null, null))
+                .processor(sixthProcessor())
+                .writer(sixthWriter()))
+                .build();
+    }
+
+    /**
+     *  === worker reader 정의 ===
+     *  @StepScope
+     *      - worker step 마다 reader 를 새로 만든다 (파티션끼리 reader 의 상태를 공유하지 않는다)
+     *      - stepExecutionContext 의 minId, maxId 는 IdRangePartitioner 가 넣어준 값이다
+     */
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<BeforeEntity> sixthPartitionReader(
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId,
+            @Value(BatchSizes.PAGE_SIZE) Integer pageSize) {
+
+        return new JdbcPagingItemReaderBuilder<BeforeEntity>()
+                .name("sixthPartitionReader")
+                .dataSource(dataSource)
+                .selectClause("SELECT id, username")
+                .fromClause("FROM BeforeEntity")
+                .whereClause("WHERE id BETWEEN :minId AND :maxId") // 자신의 파티션 범위만 읽는다
+                .parameterValues(Map.of("minId", minId, "maxId", maxId))
+                .sortKeys(Map.of("id", Order.ASCENDING))
+                .rowMapper(new CustomBeforeRowMapper())
+                .pageSize(pageSize)
+                .build();
+    }
+
     /**
      *  itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
      *      - 객체의 필드값을 sql 에 자동으로 매핑해주는 provider
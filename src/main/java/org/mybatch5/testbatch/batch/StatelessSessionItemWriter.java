@@ -0,0 +1,83 @@
+package org.mybatch5.testbatch.batch;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ *  Hibernate StatelessSession 으로 청크의 엔티티를 UPDATE 하는 writer
+ *
+ *  RepositoryItemWriter(save) 는 한 건마다 merge 를 호출하고, 영속성 컨텍스트에 쌓인 엔티티를 flush 때 모두 dirty checking 한다
+ *  StatelessSession 은 영속성 컨텍스트가 없어서
+ *      - merge 전 SELECT, dirty checking, 1차 캐시가 없다 (청크 크기와 상관없이 메모리가 일정하다)
+ *      - update 를 바로 SQL 로 만들고, 청크 전체를 JDBC batch 하나로 묶어서 보낸다 (batch 크기 = 청크 크기)
+ *
+ *  커넥션
+ *      - DataSourceUtils.getConnection(dataSource) 로 현재 청크 트랜잭션의 data DB 커넥션을 사용한다
+ *        (ChunkTransactionManager 의 data 트랜잭션에 그대로 참여한다 / 트랜잭션이 없으면 커넥션의 autocommit 을 따른다)
+ *      - 청크 트랜잭션의 EntityManager 가 같은 엔티티를 관리하고 있으면(reader 가 읽은 엔티티) 먼저 detach 한다
+ *        그대로 두면 커밋할 때 dirty checking 으로 같은 UPDATE 가 한 번 더 실행된다
+ *
+ *  StatelessSession.update 는 모든 컬럼을 UPDATE 한다
+ *  INSERT 는 지원하지 않는다 - id 가 IDENTITY 인 엔티티는 생성된 id 를 받아야 해서 Hibernate 가 INSERT 를 묶지 못한다
+ *  (대량 INSERT 는 JdbcBatchItemWriter 를 사용한다 - firstJob 의 writeMode=jdbc)
+ *
+ *  남은 batch 보내기
+ *      - StatelessSession 에는 묶어 둔 batch 를 보내는 공개 API 가 없고, Hibernate 트랜잭션을 커밋하면 청크 트랜잭션보다 먼저 커넥션이 커밋된다
+ *      - 그래서 close() 전에 SharedSessionContractImplementor(SPI) 의 JdbcCoordinator 로 직접 보낸다 (이 클래스 한 곳에서만 사용한다)
+ */
+public class StatelessSessionItemWriter<T> implements ItemWriter<T> {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+
+    public StatelessSessionItemWriter(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        detachManaged(chunk);
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (StatelessSession session = sessionFactory.openStatelessSession(connection)) {
+            session.setJdbcBatchSize(chunk.size());
+
+            for (T item : chunk) {
+                session.update(item);
+            }
+            // close() 전에 남은 batch 를 보낸다 (클래스 주석의 "남은 batch 보내기" 참고)
+            ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void detachManaged(Chunk<? extends T> chunk) {
+        // 트랜잭션에 묶인 EntityManager 만 확인한다 (없으면 새로 만들지 않는다)
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        if (holder == null) {
+            return;
+        }
+        for (T item : chunk) {
+            if (holder.getEntityManager().contains(item)) {
+                holder.getEntityManager().detach(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.mybatch5.testbatch.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.io.IOException;
+
+/**
+ *  ExcelRowReader 의 스트리밍 버전
+ *
+ *  ExcelRowReader 는 WorkbookFactory.create() 로 엑셀 전체를 메모리에 올린 뒤에 첫 행을 읽는다
+ *  이 reader 는 XlsxSheetStreamer 를 사용해 첫 번째 시트를 한 행씩 읽기 때문에
+ *  파일의 크기와 상관없이 힙 사용량이 일정하다
+ *
+ *  currentRowNumber / CURRENT_ROW_KEY
+ *      - ExcelRowReader 와 같은 키("current.row.number")와 같은 의미(지금까지 읽은 행 수)를 사용한다
+ *
+ *  CURRENT_OFFSET_KEY
+ *      - 마지막으로 읽은 행이 끝나는 시트 xml 의 위치 (XlsxSheetStreamer.getPosition())
+ *      - 재시작 시 앞의 행들을 다시 파싱하지 않고 이 위치로 바로 이동한다
+ *      - 위치가 저장되어 있지 않은 경우(이전 버전의 체크포인트)에만 행 수 만큼 건너뛴다
+ */
+public class StreamingExcelRowReader implements ItemStreamReader<ExcelRow> {
+
+    private final String filePath;              // 엑셀 파일의 경로
+    private XlsxSheetStreamer streamer;         // 시트를 한 행씩 읽는 객체
+    private int currentRowNumber;               // 어떤 행까지 반복을 실행했는지 기록하는 행번호
+    private final String CURRENT_ROW_KEY = "current.row.number"; // 메타데이터 테이블에 기록한 값
+    private final String CURRENT_OFFSET_KEY = "current.row.offset"; // 재시작 시 이동할 시트 xml 위치
+
+    public StreamingExcelRowReader(String filePath) {
+        this.filePath = filePath;
+        this.currentRowNumber = 0; // 엑셀을 어디서 부터 읽어올지 정의 0행부터 읽어온다
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+
+        try {
+            if (executionContext.containsKey(CURRENT_ROW_KEY)) {
+                currentRowNumber = executionContext.getInt(CURRENT_ROW_KEY);
+            }
+
+            long offset = executionContext.getLong(CURRENT_OFFSET_KEY, -1L);
+            if (offset >= 0) {
+                // 저장된 위치로 바로 이동
+                streamer = new XlsxSheetStreamer(filePath, 0, offset);
+                return;
+            }
+
+            streamer = new XlsxSheetStreamer(filePath, 0);
+
+            // 이미 실행한 부분은 건너 뜀
+            for (int i = 0; i < currentRowNumber; i++) {
+                if (!streamer.skipRow()) {
+                    break;
+                }
+            }
+
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        }
+    }
+
+    @Override
+    public ExcelRow read() {
+
+        try {
+            ExcelRow row = streamer.nextRow();
+            if (row != null) {
+                currentRowNumber++;
+            }
+            return row;
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        // 현재까지 처리한 행 번호를 ExecutionContext 에 저장
+        executionContext.putInt(CURRENT_ROW_KEY, currentRowNumber);
+        if (streamer != null) {
+            executionContext.putLong(CURRENT_OFFSET_KEY, streamer.getPosition());
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+
+        try {
+            if (streamer != null) {
+                streamer.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        } finally {
+            streamer = null;
+        }
+    }
+}
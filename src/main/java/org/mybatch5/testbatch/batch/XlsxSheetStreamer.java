@@ -0,0 +1,681 @@
+package org.mybatch5.testbatch.batch;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ *  .xlsx 파일의 한 시트를 DOM 으로 만들지 않고 한 행씩 읽어오는 객체
+ *
+ *  WorkbookFactory.create() 는 시트 전체를 XSSF 객체로 만들어 메모리에 올리기 때문에
+ *  수십만 행 이상의 파일에서는 기가바이트 단위의 힙을 사용한다
+ *  이 객체는 POI 의 이벤트 API 를 사용한다
+ *
+ *  OPCPackage.open(filePath, PackageAccess.READ)
+ *      - xlsx(zip) 파일을 읽기 전용으로 연다. 압축 항목은 필요할 때 하나씩 풀린다
+ *
+ *  ReadOnlySharedStringsTable
+ *      - 문자열 셀은 sharedStrings.xml 의 인덱스만 가지고 있으므로 공유 문자열 테이블로 실제 값을 찾는다
+ *
+ *  XSSFReader.getSheetsData()
+ *      - 시트 xml 을 InputStream 으로 반환한다
+ *      - ItemReader 는 한 번에 한 건씩 가져가는(pull) 방식이기 때문에 SAX 대신 StAX 로 <row> 단위로 끊어서 읽는다
+ *      - 한 번에 메모리에 있는 것은 현재 읽고 있는 행 하나뿐이다
+ *
+ *  getPosition() / startOffset
+ *      - 마지막으로 읽은(건너뛴) 행이 끝나는 위치를 시트 xml 의 문자 offset 으로 반환한다
+ *      - 이 값을 ExecutionContext 에 저장해두면 재시작 시 앞의 행들을 파싱하지 않고 해당 위치로 바로 이동할 수 있다
+ *        (zip 으로 압축된 항목이라 압축 해제는 다시 해야 하지만, xml 파싱과 셀 값 생성 비용은 들지 않는다)
+ *      - XMLStreamReader.getLocation() 의 offset 은 버퍼를 다시 채울 때 어긋나는 경우가 있어
+ *        RowBoundaryReader 가 파서에 넘기는 문자를 직접 세어 </row> 위치를 기록한다
+ *
+ *  네임스페이스 접두사
+ *      - 다른 프로그램이 만든 파일은 <x:sheetData>, <x:row> 처럼 기본 네임스페이스 대신 접두사를 쓰는 경우가 있다
+ *      - 네임스페이스 처리를 끄고 읽기 때문에 태그 이름은 접두사를 뗀 이름(local name)으로 비교한다
+ *
+ *  readFirstRow()
+ *      - 중간으로 이동한 경우에도 시트의 첫 행(헤더)을 읽을 수 있도록, 건너뛴 앞부분 중 첫 행까지는 보관해 둔다
+ *      - 헤더를 읽으려고 파일(OPCPackage)과 공유 문자열 테이블을 한 번 더 열지 않아도 된다
+ */
+public class XlsxSheetStreamer implements Closeable {
+
+    private static final String SHEET_DATA = "sheetData";
+    private static final String ROW = "row";
+    private static final String CELL = "c";
+    private static final String VALUE = "v";
+    private static final String TEXT = "t";
+    private static final String PHONETIC_RUN = "rPh";
+    // 건너뛰는 앞부분에서 sheetData 시작 태그를 찾을 때 읽는 단위
+    private static final int SEEK_BUFFER_SIZE = 8192;
+
+    private final String filePath;
+    private final boolean seeked;       // startOffset 으로 이동했는지
+    private String firstRowXml;         // 이동한 경우 건너뛴 앞부분 중 첫 행이 끝나는 곳까지 (첫 행이 없으면 null)
+    private OPCPackage opcPackage;
+    private ReadOnlySharedStringsTable sharedStrings;
+    private InputStream sheetInputStream;
+    private RowBoundaryReader rowBoundaryReader;
+    private XMLStreamReader xmlReader;
+    private boolean finished;
+    private int lastRowNum = -1;
+    private long position;              // 마지막으로 읽은 행이 끝나는 문자 offset (알 수 없으면 -1)
+
+    // 행을 읽을 때 재사용하는 버퍼
+    private CellType[] types = new CellType[16];
+    private String[] values = new String[16];
+
+    public XlsxSheetStreamer(String filePath, int sheetIndex) throws IOException {
+        this(filePath, sheetIndex, 0L);
+    }
+
+    /**
+     *  startOffset
+     *      - 0 이면 시트의 처음부터 읽는다
+     *      - 0 보다 크면 이전에 getPosition() 으로 받은 위치로 이동한 뒤 다음 행부터 읽는다
+     */
+    public XlsxSheetStreamer(String filePath, int sheetIndex, long startOffset) throws IOException {
+        this.filePath = filePath;
+        this.seeked = startOffset > 0;
+        this.position = startOffset;
+
+        try {
+            opcPackage = OPCPackage.open(filePath, PackageAccess.READ);
+            XSSFReader xssfReader = new XSSFReader(opcPackage);
+            sharedStrings = new ReadOnlySharedStringsTable(opcPackage, false);
+
+            sheetInputStream = openSheet(xssfReader, sheetIndex);
+            Reader sheetReader = new InputStreamReader(sheetInputStream, StandardCharsets.UTF_8);
+            String sheetDataName = skipFully(sheetReader, startOffset);
+            rowBoundaryReader = new RowBoundaryReader(sheetReader, startOffset);
+
+            Reader parserInput = rowBoundaryReader;
+            if (seeked) {
+                // 중간부터 읽는 경우 파서가 sheetData 안에 있는 것처럼 보이도록 시작 태그를 앞에 붙여 준다 (offset 계산에는 포함되지 않는다)
+                // 끝 태그(</x:sheetData>)와 짝이 맞도록 파일에 있던 이름을 접두사까지 그대로 사용한다
+                String seekPrefix = "<" + sheetDataName + ">";
+                PushbackReader pushbackReader = new PushbackReader(rowBoundaryReader, seekPrefix.length());
+                pushbackReader.unread(seekPrefix.toCharArray());
+                parserInput = pushbackReader;
+            }
+
+            xmlReader = createXmlReader(parserInput);
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            close();
+            throw new IOException("Failed to open Excel file: " + filePath, e);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // 행에 붙는 x14ac:dyDescent 같은 접두사 속성은 루트에만 선언되어 있어 중간부터 읽을 수 있도록 네임스페이스 처리를 끈다
+    private static XMLStreamReader createXmlReader(Reader input) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLHelper.newXMLInputFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return inputFactory.createXMLStreamReader(input);
+    }
+
+    /**
+     *  파일에 있는 시트 수 (시트 xml 을 파싱하지 않고 workbook.xml 의 목록만 센다)
+     */
+    public static int countSheets(String filePath) throws IOException {
+        OPCPackage opcPackage = null;
+        try {
+            opcPackage = OPCPackage.open(filePath, PackageAccess.READ);
+            Iterator<InputStream> sheets = new XSSFReader(opcPackage).getSheetsData();
+
+            int count = 0;
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                count++;
+            }
+            return count;
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to open Excel file: " + filePath, e);
+        } finally {
+            if (opcPackage != null) {
+                opcPackage.revert();
+            }
+        }
+    }
+
+    private InputStream openSheet(XSSFReader xssfReader, int sheetIndex) throws IOException, OpenXML4JException {
+        Iterator<InputStream> sheets = xssfReader.getSheetsData();
+
+        for (int i = 0; sheets.hasNext(); i++) {
+            InputStream sheet = sheets.next();
+            if (i == sheetIndex) {
+                return sheet;
+            }
+            sheet.close();
+        }
+        throw new IOException("No sheet at index " + sheetIndex + " in Excel file: " + filePath);
+    }
+
+    /**
+     *  count 만큼 건너뛰고, 건너뛴 앞부분에 있던 sheetData 시작 태그의 이름을 접두사까지 포함해서 반환한다 ("sheetData", "x:sheetData")
+     *  첫 행이 끝나는 곳까지는 firstRowXml 로 보관하고 (readFirstRow), 그 뒤의 나머지는 읽지 않고 건너뛴다
+     */
+    private String skipFully(Reader reader, long count) throws IOException {
+        String sheetDataName = null;
+        StringBuilder head = new StringBuilder();
+        RowBoundaryReader headScanner = new RowBoundaryReader(Reader.nullReader(), 0L);
+        long firstRowEnd = -1;
+        char[] buffer = new char[SEEK_BUFFER_SIZE];
+
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped;
+            if (sheetDataName == null || firstRowEnd < 0) {
+                skipped = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (skipped > 0) {
+                    head.append(buffer, 0, (int) skipped);
+                    if (sheetDataName == null) {
+                        sheetDataName = findSheetDataName(head);
+                    }
+                    for (int i = 0; i < skipped && firstRowEnd < 0; i++) {
+                        headScanner.scan(buffer[i]);
+                        firstRowEnd = headScanner.pollRowEnd();
+                    }
+                }
+            } else {
+                skipped = reader.skip(remaining);
+            }
+            if (skipped <= 0) {
+                throw new IOException("Seek position " + count + " is beyond the end of the sheet in Excel file: " + filePath);
+            }
+            remaining -= skipped;
+        }
+
+        if (firstRowEnd > 0) {
+            firstRowXml = head.substring(0, (int) firstRowEnd);
+        }
+        return sheetDataName != null ? sheetDataName : SHEET_DATA;
+    }
+
+    // "<sheetData" 또는 "<x:sheetData" 로 시작하는 시작 태그의 이름 (아직 없으면 null)
+    static String findSheetDataName(CharSequence xml) {
+        for (int start = indexOf(xml, '<', 0); start >= 0; start = indexOf(xml, '<', start + 1)) {
+            int end = start + 1;
+            while (end < xml.length() && isNameChar(xml.charAt(end))) {
+                end++;
+            }
+            if (end == xml.length()) {
+                return null; // 태그 이름이 아직 다 읽히지 않았다
+            }
+            String name = xml.subSequence(start + 1, end).toString();
+            if (SHEET_DATA.equals(localName(name))) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(CharSequence text, char ch, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNameChar(char ch) {
+        return ch == ':' || ch == '_' || ch == '-' || ch == '.' || Character.isLetterOrDigit(ch);
+    }
+
+    // "x:row" -> "row"
+    static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon < 0 ? name : name.substring(colon + 1);
+    }
+
+    // 네임스페이스 처리를 껐기 때문에 getLocalName() 은 접두사가 붙은 이름("x:row")을 반환할 수 있다
+    private static String elementName(XMLStreamReader reader) {
+        return localName(reader.getLocalName());
+    }
+
+    /**
+     *  마지막으로 읽은(건너뛴) 행이 끝나는 위치
+     *  아직 아무 행도 읽지 않았다면 생성자에 전달한 startOffset 을 반환하고, 위치를 알 수 없으면 -1 을 반환한다
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     *  마지막으로 읽은(건너뛴) 행의 0 부터 시작하는 행 번호 (아직 읽은 행이 없으면 -1)
+     */
+    public int getLastRowNum() {
+        return lastRowNum;
+    }
+
+    /**
+     *  다음 <row> 를 읽어 반환한다
+     *  sheetData 가 끝나면 null 을 반환한다
+     */
+    public ExcelRow nextRow() throws IOException {
+        try {
+            if (!moveToNextRow()) {
+                return null;
+            }
+            ExcelRow row = readRow(xmlReader, lastRowNum);
+            lastRowNum = row.getRowNum();
+            position = rowBoundaryReader.pollRowEnd();
+            return row;
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse Excel sheet: " + filePath, e);
+        }
+    }
+
+    /**
+     *  시트의 첫 행 (보통 헤더) - 시트에 행이 없으면 null
+     *      - 처음부터 읽는 경우에는 아직 아무 행도 읽지 않았을 때만 호출할 수 있고, nextRow() 처럼 첫 행을 읽는다
+     *      - startOffset 으로 이동한 경우에는 건너뛸 때 보관해 둔 앞부분에서 읽는다 (이후의 nextRow() 에는 영향이 없다)
+     */
+    public ExcelRow readFirstRow() throws IOException {
+        if (!seeked) {
+            if (lastRowNum >= 0) {
+                throw new IllegalStateException("First row has already been read: " + filePath);
+            }
+            return nextRow();
+        }
+        if (firstRowXml == null) {
+            return null;
+        }
+
+        try {
+            // 보관한 문자열은 첫 행의 끝 태그에서 잘려 있으므로 그 뒤로는 읽지 않는다
+            XMLStreamReader headReader = createXmlReader(new StringReader(firstRowXml));
+            try {
+                while (headReader.hasNext()) {
+                    int event = headReader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && ROW.equals(elementName(headReader))) {
+                        return readRow(headReader, -1);
+                    }
+                }
+                return null;
+            } finally {
+                headReader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse Excel sheet: " + filePath, e);
+        }
+    }
+
+    /**
+     *  다음 <row> 를 셀 값으로 만들지 않고 건너뛴다
+     *  건너뛸 행이 없으면 false 를 반환한다
+     */
+    public boolean skipRow() throws IOException {
+        try {
+            if (!moveToNextRow()) {
+                return false;
+            }
+            lastRowNum = parseRowNum(xmlReader, lastRowNum);
+            skipElement(xmlReader);
+            position = rowBoundaryReader.pollRowEnd();
+            return true;
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse Excel sheet: " + filePath, e);
+        }
+    }
+
+    // <row> 시작 태그 위치로 이동한다
+    private boolean moveToNextRow() throws XMLStreamException {
+        if (finished) {
+            return false;
+        }
+
+        while (xmlReader.hasNext()) {
+            int event = xmlReader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && ROW.equals(elementName(xmlReader))) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT && SHEET_DATA.equals(elementName(xmlReader))) {
+                break;
+            }
+        }
+
+        finished = true;
+        return false;
+    }
+
+    // r 속성이 없으면 이전 행의 다음 행
+    private static int parseRowNum(XMLStreamReader reader, int previousRowNum) {
+        String ref = reader.getAttributeValue(null, "r");
+        return ref != null ? Integer.parseInt(ref) - 1 : previousRowNum + 1;
+    }
+
+    // reader 는 <row> 시작 태그에 있어야 한다
+    private ExcelRow readRow(XMLStreamReader reader, int previousRowNum) throws XMLStreamException {
+        int rowNum = parseRowNum(reader, previousRowNum);
+        int width = 0;
+        int lastColumn = -1;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && CELL.equals(elementName(reader))) {
+                String ref = reader.getAttributeValue(null, "r");
+                int column = ref != null ? columnIndex(ref) : lastColumn + 1;
+                ensureCapacity(column + 1);
+
+                // 이전 셀과 현재 셀 사이의 빈 칸은 비워둔다
+                for (int i = width; i < column; i++) {
+                    types[i] = null;
+                    values[i] = null;
+                }
+                readCell(reader, column, reader.getAttributeValue(null, "t"));
+
+                width = Math.max(width, column + 1);
+                lastColumn = column;
+            } else if (event == XMLStreamConstants.END_ELEMENT && ROW.equals(elementName(reader))) {
+                break;
+            }
+        }
+
+        return new ExcelRow(rowNum, Arrays.copyOf(types, width), Arrays.copyOf(values, width));
+    }
+
+    /**
+     *  <c> 하나를 읽는다
+     *      t="s"          공유 문자열 인덱스
+     *      t="inlineStr"  <is><t> 안의 문자열
+     *      t="str"        수식의 문자열 결과
+     *      t="b"          boolean (1/0)
+     *      t="e"          오류
+     *      없음 / t="n"    숫자
+     */
+    private void readCell(XMLStreamReader reader, int column, String type) throws XMLStreamException {
+        String value = null;
+        StringBuilder inlineText = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = elementName(reader);
+                if (VALUE.equals(name)) {
+                    value = reader.getElementText();
+                } else if (TEXT.equals(name)) {
+                    if (inlineText == null) {
+                        inlineText = new StringBuilder();
+                    }
+                    inlineText.append(reader.getElementText());
+                } else if (PHONETIC_RUN.equals(name)) {
+                    skipElement(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && CELL.equals(elementName(reader))) {
+                break;
+            }
+        }
+
+        if (inlineText != null) {
+            value = inlineText.toString();
+        }
+
+        if (value == null) {
+            types[column] = CellType.BLANK;
+            values[column] = null;
+            return;
+        }
+
+        if ("s".equals(type)) {
+            types[column] = CellType.STRING;
+            values[column] = sharedStrings.getItemAt(Integer.parseInt(value.trim())).getString();
+        } else if ("inlineStr".equals(type) || "str".equals(type) || "d".equals(type)) {
+            types[column] = CellType.STRING;
+            values[column] = value;
+        } else if ("b".equals(type)) {
+            types[column] = CellType.BOOLEAN;
+            values[column] = value;
+        } else if ("e".equals(type)) {
+            types[column] = CellType.ERROR;
+            values[column] = value;
+        } else {
+            types[column] = CellType.NUMERIC;
+            values[column] = value;
+        }
+    }
+
+    // 현재 시작 태그의 끝 태그까지 건너뛴다
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // "AB12" -> 27
+    static int columnIndex(String cellRef) {
+        int column = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char ch = cellRef.charAt(i);
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > types.length) {
+            int newSize = Math.max(size, types.length * 2);
+            types = Arrays.copyOf(types, newSize);
+            values = Arrays.copyOf(values, newSize);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xmlReader != null) {
+                xmlReader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            xmlReader = null;
+            rowBoundaryReader = null;
+            try {
+                if (sheetInputStream != null) {
+                    sheetInputStream.close();
+                }
+            } finally {
+                sheetInputStream = null;
+                if (opcPackage != null) {
+                    // 읽기 전용 패키지는 close() 대신 revert() 로 닫는다 (저장하지 않음)
+                    opcPackage.revert();
+                    opcPackage = null;
+                }
+            }
+        }
+    }
+
+    /**
+     *  파서에 전달되는 문자를 세면서 </row> 와 <row .../> 가 끝나는 위치를 순서대로 기록하는 Reader
+     *
+     *  StAX 파서는 버퍼 단위로 미리 읽어가기 때문에 이 Reader 가 기록한 위치가 파서가 보고한 행보다 앞설 수 있다
+     *  행은 항상 순서대로 보고되므로, 파서가 행 하나를 끝낼 때마다 가장 오래된 위치를 하나씩 꺼내 쓴다
+     *  (큐의 크기는 파서의 버퍼 크기 안에 들어가는 행 수로 제한된다)
+     *
+     *  태그 이름은 접두사를 무시하고 비교한다 (<row>, <x:row> 모두 행으로 본다)
+     */
+    private static class RowBoundaryReader extends FilterReader {
+
+        private static final String ROW_NAME = "row";
+
+        private static final int NONE = 0;
+        private static final int IN_NAME = 1;           // "<" 또는 "</" 다음의 태그 이름을 읽는 중
+        private static final int IN_START_TAG = 2;      // <row 의 속성을 읽는 중
+        private static final int AFTER_END_NAME = 3;    // "</row" 까지 읽음
+
+        private long offset;            // 지금까지 파서에 넘긴 문자의 절대 위치
+        private int state = NONE;
+        private int nameMatch;          // 접두사 다음으로 "row" 중 몇 글자가 일치했는지 (-1 이면 일치하지 않음)
+        private boolean nameStarted;    // 태그 이름의 첫 글자를 읽었는지
+        private boolean closingTag;
+        private char quote;
+        private char previous;
+
+        private long[] rowEnds = new long[64];
+        private int head;
+        private int size;
+
+        RowBoundaryReader(Reader in, long startOffset) {
+            super(in);
+            this.offset = startOffset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int ch = super.read();
+            if (ch != -1) {
+                scan((char) ch);
+            }
+            return ch;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            int count = super.read(buffer, off, len);
+            for (int i = 0; i < count; i++) {
+                scan(buffer[off + i]);
+            }
+            return count;
+        }
+
+        // 파서가 끝낸 행의 끝 위치 (기록된 위치가 없으면 -1)
+        long pollRowEnd() {
+            if (size == 0) {
+                return -1;
+            }
+            long rowEnd = rowEnds[head];
+            head = (head + 1) % rowEnds.length;
+            size--;
+            return rowEnd;
+        }
+
+        private void scan(char ch) {
+            offset++;
+
+            switch (state) {
+                case IN_NAME:
+                    scanName(ch);
+                    return;
+                case IN_START_TAG:
+                    if (quote != 0) {
+                        if (ch == quote) {
+                            quote = 0;
+                        }
+                    } else if (ch == '"' || ch == '\'') {
+                        quote = ch;
+                    } else if (ch == '>') {
+                        if (previous == '/') {
+                            addRowEnd(offset); // <row .../>
+                        }
+                        state = NONE;
+                    }
+                    previous = ch;
+                    return;
+                case AFTER_END_NAME:
+                    if (ch == '>') {
+                        addRowEnd(offset);
+                        state = NONE;
+                    } else if (!Character.isWhitespace(ch)) {
+                        state = NONE;
+                    }
+                    return;
+                default:
+                    break;
+            }
+
+            if (ch == '<') {
+                state = IN_NAME;
+                nameMatch = 0;
+                nameStarted = false;
+                closingTag = false;
+            }
+        }
+
+        // 태그 이름을 한 글자씩 비교한다 ("x:" 같은 접두사가 나오면 그 다음부터 다시 비교한다)
+        private void scanName(char ch) {
+            if (!nameStarted && ch == '/' && !closingTag) {
+                closingTag = true;
+                return;
+            }
+            if (ch == ':') {
+                nameMatch = nameStarted ? 0 : -1;
+                nameStarted = true;
+                return;
+            }
+            if (ch == '/' || ch == '>' || Character.isWhitespace(ch)) {
+                // 태그 이름이 끝났다
+                boolean isRow = nameMatch == ROW_NAME.length();
+                state = NONE;
+                if (!isRow) {
+                    return;
+                }
+                if (closingTag) {
+                    if (ch == '>') {
+                        addRowEnd(offset); // </row>
+                    } else if (ch != '/') {
+                        state = AFTER_END_NAME;
+                    }
+                } else if (ch != '>') {
+                    // <row> 는 행의 시작일 뿐이고, 속성 뒤에 "/>" 로 끝나는지 확인한다
+                    state = IN_START_TAG;
+                    quote = 0;
+                    previous = ch;
+                }
+                return;
+            }
+
+            nameStarted = true;
+            if (nameMatch >= 0 && nameMatch < ROW_NAME.length() && ch == ROW_NAME.charAt(nameMatch)) {
+                nameMatch++;
+            } else {
+                nameMatch = -1; // "rowBreaks" 처럼 더 긴 이름 등
+            }
+        }
+
+        private void addRowEnd(long rowEnd) {
+            if (size == rowEnds.length) {
+                long[] grown = new long[rowEnds.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = rowEnds[(head + i) % rowEnds.length];
+                }
+                rowEnds = grown;
+                head = 0;
+            }
+            rowEnds[(head + size) % rowEnds.length] = rowEnd;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.mybatch5.testbatch.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ *  meta DB / data DB 의 HikariCP 커넥션 풀 생성
+ *
+ *  풀 크기 등 Hikari 설정은 각 DataSource 의 prefix 아래에 작성한다 (meta 와 data 는 따로 설정한다)
+ *      - spring.datasource-meta.maximum-pool-size / minimum-idle / connection-timeout ...
+ *      - spring.datasource-data.maximum-pool-size / minimum-idle / connection-timeout ...
+ *
+ *  mysql-connector-j 드라이버 설정은 data-source-properties 로 넘긴다
+ *  아래 DRIVER_DEFAULTS 를 기본값으로 넣어두고, 같은 키를 설정 파일에 작성하면 그 값이 우선한다
+ *      - spring.datasource-data.data-source-properties.prepStmtCacheSize=500
+ *
+ *  DRIVER_DEFAULTS
+ *      - cachePrepStmts / prepStmtCacheSize / prepStmtCacheSqlLimit
+ *          커넥션마다 PreparedStatement 를 캐시해서 같은 SQL 을 청크마다 다시 준비하지 않는다
+ *      - useServerPrepStmts
+ *          서버 측 PreparedStatement 사용 (SQL 파싱은 한 번, 실행마다 파라미터만 보낸다)
+ *      - rewriteBatchedStatements
+ *          JdbcBatchItemWriter / Hibernate 배치의 addBatch() 묶음을 multi-row INSERT 로 바꿔 한 번에 보낸다
+ *          설정하지 않으면 드라이버가 배치를 행마다 한 번씩 서버로 보낸다
+ *      - useLocalSessionState
+ *          autocommit / 격리수준을 드라이버가 기억해서 트랜잭션마다 보내던 확인 쿼리를 줄인다
+ */
+public final class BatchDataSources {
+
+    public static final Map<String, String> DRIVER_DEFAULTS = Map.of(
+            "cachePrepStmts", "true",
+            "prepStmtCacheSize", "250",
+            "prepStmtCacheSqlLimit", "2048",
+            "useServerPrepStmts", "true",
+            "rewriteBatchedStatements", "true",
+            "useLocalSessionState", "true"
+    );
+
+    private BatchDataSources() {
+    }
+
+    /**
+     *  드라이버 기본 설정을 넣은 HikariDataSource
+     *  반환한 뒤 @ConfigurationProperties 가 url, 계정, 풀 크기 등을 바인딩한다
+     */
+    public static HikariDataSource create(String poolName) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+
+        Properties properties = new Properties();
+        properties.putAll(DRIVER_DEFAULTS);
+        dataSource.setDataSourceProperties(properties);
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,109 @@
+package org.mybatch5.testbatch.config;
+
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ *  파티셔닝 / 멀티스레드 step 에서 사용할 TaskExecutor 설정
+ *
+ *  batch.executor.pool-size
+ *      - 동시에 실행할 worker 스레드 수 (기본 4)
+ *      - 각 worker 는 DB 커넥션을 하나씩 사용하므로 데이터소스의 커넥션 풀 크기보다 크지 않게 설정한다
+ *
+ *  batch.executor.queue-capacity
+ *      - 스레드가 모두 사용 중일 때 대기할 수 있는 작업 수 (기본 100)
+ *      - gridSize 가 pool-size 보다 큰 경우 남은 파티션은 큐에서 순서대로 실행된다
+ *
+ *  batch.launcher.pool-size / batch.launcher.queue-capacity
+ *      - 비동기 실행(asyncJobLauncher)에서 job 을 실행하는 스레드 수 (기본 2) 와 대기할 수 있는 job 수 (기본 10)
+ *      - 큐까지 가득 차면 TaskRejectedException 으로 실행을 거절한다 (요청 스레드가 job 을 대신 실행하지 않는다)
+ *
+ *  batch.executor.type
+ *      - platform (기본) : 일반 플랫폼 스레드
+ *      - virtual         : 가상 스레드 (Java 21)
+ *      - platform 은 ThreadPoolTaskExecutor 로 pool-size 만큼 스레드를 만들어 두고, 나머지 작업은 큐에서 기다린다
+ *      - virtual 은 스레드 풀 없이 작업마다 가상 스레드를 새로 만든다 (SimpleAsyncTaskExecutor)
+ *        가상 스레드는 만드는 비용이 작아서 풀에 담아 재사용하지 않는다
+ *        가상 스레드라도 DB 커넥션 수 이상으로 동시에 실행하면 커넥션을 기다리기만 하기 때문에 동시 실행 수는 pool-size 로 제한한다
+ *        제한에 걸린 작업은 큐에 들어가지 않고 execute() 를 호출한 스레드가 자리가 날 때까지 기다린다
+ *        (queue-capacity 는 사용하지 않고, launcher 도 TaskRejectedException 으로 거절하지 않고 요청 스레드가 기다린다)
+ *        JDBC 응답을 기다리는 동안 캐리어(플랫폼) 스레드를 점유하지 않는 것이 가상 스레드의 장점이다
+ */
+@Configuration
+public class BatchTaskExecutorConfig {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private final String executorType;
+
+    public BatchTaskExecutorConfig(@Value("${batch.executor.type:" + PLATFORM + "}") String executorType) {
+        if (!PLATFORM.equals(executorType) && !VIRTUAL.equals(executorType)) {
+            throw new IllegalArgumentException("batch.executor.type must be '" + PLATFORM + "' or '" + VIRTUAL + "': " + executorType);
+        }
+        this.executorType = executorType;
+    }
+
+    @Bean
+    public TaskExecutor batchTaskExecutor(@Value("${batch.executor.pool-size:4}") int poolSize,
+                                          @Value("${batch.executor.queue-capacity:100}") int queueCapacity) {
+
+        return createExecutor(executorType, "batch-", poolSize, queueCapacity);
+    }
+
+    @Bean
+    public TaskExecutor jobLauncherTaskExecutor(@Value("${batch.launcher.pool-size:2}") int poolSize,
+                                                @Value("${batch.launcher.queue-capacity:10}") int queueCapacity) {
+
+        return createExecutor(executorType, "job-launcher-", poolSize, queueCapacity);
+    }
+
+    /**
+     *  비동기 JobLauncher
+     *      - run() 은 JobExecution 을 만든 뒤 바로 반환하고, job 은 jobLauncherTaskExecutor 의 스레드에서 실행된다
+     *      - 기본 jobLauncher (동기) 는 그대로 두고 이름으로 구분해서 주입받는다
+     */
+    @Bean
+    public JobLauncher asyncJobLauncher(JobRepository jobRepository,
+                                        @Qualifier("jobLauncherTaskExecutor") TaskExecutor jobLauncherTaskExecutor) throws Exception {
+
+        TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(jobLauncherTaskExecutor);
+        jobLauncher.afterPropertiesSet();
+
+        return jobLauncher;
+    }
+
+    /**
+     *  pool-size 만큼 동시에 실행하는 executor
+     *      - platform : pool-size 개의 스레드 풀 + queue-capacity 크기의 큐 (큐까지 가득 차면 거절)
+     *      - virtual  : 작업마다 가상 스레드를 만들고 동시 실행 수만 pool-size 로 제한한다 (queue-capacity 는 사용하지 않는다)
+     *  설정 빈이 아닌 곳(벤치마크)에서도 같은 executor 를 만들 수 있도록 static 으로 둔다
+     */
+    public static TaskExecutor createExecutor(String type, String threadNamePrefix, int poolSize, int queueCapacity) {
+
+        if (VIRTUAL.equals(type)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(poolSize);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package org.mybatch5.testbatch.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *  step 의 청크 트랜잭션에 사용할 트랜잭션 매니저 설정
+ *
+ *  각 배치의 chunk(chunkSize, transactionManager) / tasklet(tasklet, transactionManager) 에는
+ *  @Qualifier("chunkTransactionManager") 로 이 빈을 넘긴다
+ *
+ *  batch.transaction.mode
+ *      - chunk (기본) : ChunkTransactionManager - 청크 하나가 data DB 커밋 한 번, 그 다음 meta DB 커밋 한 번
+ *      - meta         : metaTransactionManager 만 사용 (이전 방식 - data DB 쓰기는 청크 트랜잭션 밖에서 행마다 커밋된다)
+ */
+@Configuration
+public class BatchTransactionConfig {
+
+    public static final String CHUNK = "chunk";
+    public static final String META = "meta";
+
+    @Bean
+    public PlatformTransactionManager chunkTransactionManager(@Value("${batch.transaction.mode:" + CHUNK + "}") String mode,
+                                                              @Qualifier("metaTransactionManager") PlatformTransactionManager metaTransactionManager,
+                                                              @Qualifier("dataTransactionManager") PlatformTransactionManager dataTransactionManager) {
+
+        if (META.equals(mode)) {
+            return metaTransactionManager;
+        }
+        if (!CHUNK.equals(mode)) {
+            throw new IllegalArgumentException("batch.transaction.mode must be '" + CHUNK + "' or '" + META + "': " + mode);
+        }
+        return new ChunkTransactionManager(metaTransactionManager, dataTransactionManager);
+    }
+}
@@ -0,0 +1,140 @@
+package org.mybatch5.testbatch.config;
+
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ *  청크 하나를 메타 DB 트랜잭션과 비즈니스(data) DB 트랜잭션 두 개로 묶는 트랜잭션 매니저
+ *
+ *  step 의 chunk(chunkSize, transactionManager) 에 metaTransactionManager 만 넘기면
+ *  writer 가 사용하는 dataDBSource 커넥션은 청크 트랜잭션에 묶이지 않아 행마다 autocommit 된다
+ *  (RepositoryItemWriter 는 save() 한 건마다 dataTransactionManager 트랜잭션을 새로 열고 커밋한다)
+ *
+ *  동작
+ *      - 시작 : meta -> data 순서로 트랜잭션을 연다
+ *               data 는 JpaTransactionManager 이므로 EntityManager 와 dataDBSource 커넥션이 함께 스레드에 묶이고
+ *               JdbcBatchItemWriter / JdbcTemplate / Repository 모두 같은 커넥션, 같은 트랜잭션에 참여한다
+ *      - 커밋 : data 를 먼저 커밋한 뒤 meta 를 커밋한다 (meta 에는 StepExecution / ExecutionContext 가 저장된다)
+ *               data 커밋이 실패하면 meta 를 롤백한다
+ *      - 롤백 : data -> meta 순서로 롤백한다
+ *
+ *  일관성 (두 DB 를 묶는 XA 트랜잭션이 아니다)
+ *      - data 커밋 전에 실패 : 두 DB 모두 롤백 -> 재시작하면 마지막 체크포인트부터 같은 청크를 다시 처리한다
+ *      - data 커밋 후 meta 커밋이 실패 : data 에는 청크가 저장되었지만 체크포인트는 이전 값
+ *        -> 재시작하면 그 청크 하나를 다시 쓴다 (at-least-once, 최대 청크 하나가 중복될 수 있다)
+ *      - meta 를 먼저 커밋하는 순서는 반대로 청크 하나를 잃을 수 있어서 사용하지 않는다
+ *
+ *  트랜잭션 동기화(TransactionSynchronization)는 먼저 시작한 meta 트랜잭션이 소유한다
+ *  (TaskletStep 이 등록하는 synchronization 은 meta 가 커밋 / 롤백될 때 호출된다)
+ */
+public class ChunkTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager metaTransactionManager;
+    private final PlatformTransactionManager dataTransactionManager;
+
+    public ChunkTransactionManager(PlatformTransactionManager metaTransactionManager,
+                                   PlatformTransactionManager dataTransactionManager) {
+        this.metaTransactionManager = metaTransactionManager;
+        this.dataTransactionManager = dataTransactionManager;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionStatus metaStatus = metaTransactionManager.getTransaction(definition);
+        try {
+            TransactionStatus dataStatus = dataTransactionManager.getTransaction(definition);
+            return new ChunkTransactionStatus(metaStatus, dataStatus);
+        } catch (RuntimeException | Error e) {
+            metaTransactionManager.rollback(metaStatus);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        ChunkTransactionStatus chunkStatus = (ChunkTransactionStatus) status;
+
+        try {
+            dataTransactionManager.commit(chunkStatus.dataStatus);
+        } catch (RuntimeException | Error e) {
+            // data 가 커밋되지 않았으므로 체크포인트도 저장하지 않는다
+            metaTransactionManager.rollback(chunkStatus.metaStatus);
+            throw e;
+        }
+        metaTransactionManager.commit(chunkStatus.metaStatus);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        ChunkTransactionStatus chunkStatus = (ChunkTransactionStatus) status;
+
+        try {
+            if (!chunkStatus.dataStatus.isCompleted()) {
+                dataTransactionManager.rollback(chunkStatus.dataStatus);
+            }
+        } finally {
+            metaTransactionManager.rollback(chunkStatus.metaStatus);
+        }
+    }
+
+    // meta / data 트랜잭션 상태를 함께 가진다
+    private static final class ChunkTransactionStatus implements TransactionStatus {
+
+        private final TransactionStatus metaStatus;
+        private final TransactionStatus dataStatus;
+
+        private ChunkTransactionStatus(TransactionStatus metaStatus, TransactionStatus dataStatus) {
+            this.metaStatus = metaStatus;
+            this.dataStatus = dataStatus;
+        }
+
+        @Override
+        public boolean isNewTransaction() {
+            return metaStatus.isNewTransaction();
+        }
+
+        @Override
+        public boolean hasSavepoint() {
+            return false;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            metaStatus.setRollbackOnly();
+            dataStatus.setRollbackOnly();
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return metaStatus.isRollbackOnly() || dataStatus.isRollbackOnly();
+        }
+
+        @Override
+        public void flush() {
+            dataStatus.flush();
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return metaStatus.isCompleted();
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            throw new NestedTransactionNotSupportedException("Savepoints are not supported across meta and data transactions");
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            throw new NestedTransactionNotSupportedException("Savepoints are not supported across meta and data transactions");
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            throw new NestedTransactionNotSupportedException("Savepoints are not supported across meta and data transactions");
+        }
+    }
+}
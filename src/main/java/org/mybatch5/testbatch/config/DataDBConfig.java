@@ -1,7 +1,7 @@
 package org.mybatch5.testbatch.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -34,12 +34,18 @@ public class DataDBConfig {
     /**
      * 이와 같이 설정하면, 애플리케이션 내에서 메타 데이터와 비즈니스 데이터를 각각 다른 데이터베이스로 분리하여 관리할 수 있으며, 트랜잭션과 엔티티 관리 등도 별도로 제어할 수 있습니다.
      */
+
+    private final int jdbcBatchSize; // hibernate.jdbc.batch_size (batch.jpa.batch-size, 기본 100)
+
+    public DataDBConfig(@Value("${batch.jpa.batch-size:100}") int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
     
-    // 비즈니스 DB 에 연결한 DataSource Bean 을 생성한다
+    // 비즈니스 DB 에 연결한 DataSource Bean 을 생성한다 (HikariCP 풀 크기 / 드라이버 설정은 BatchDataSources 참고)
     @Bean
     @ConfigurationProperties(prefix = "spring.datasource-data")
     public DataSource dataDBSource() {
-        return DataSourceBuilder.create().build();
+        return BatchDataSources.create("data-pool");
     }
 
     // JPA EntityManager 를 생성하기 위한 팩토리 Bean을 설정한다
@@ -66,8 +72,14 @@ public class DataDBConfig {
     // DB를 2개 설정하는 경우 하이번네이트 DB 세팅을 각각해주어야 되기 때문에 이렇게 설정해여 된다
         // 데이터베이스 스키마 자동 업데이트 (application.properties 의 database create, update, validate 같은거)
         properties.put("hibernate.hbm2ddl.auto", "update");
-        // 실행시 SQL 로그를 콘솔에 출력
-        properties.put("hibernate.show_sql", "true");
+        // 실행시 SQL 로그를 콘솔에 출력하지 않는다 (SQL 실행 횟수 / 시간은 SqlMetricsDataSource 의 batch.sql metric 으로 확인)
+        properties.put("hibernate.show_sql", "false");
+        // flush 할 때 같은 SQL 을 jdbcBatchSize 건씩 JDBC batch 로 묶는다 (IDENTITY id 엔티티의 INSERT 는 묶이지 않는다)
+        properties.put("hibernate.jdbc.batch_size", jdbcBatchSize);
+        // 엔티티 종류별로 INSERT / UPDATE 를 정렬해서 batch 가 중간에 끊기지 않게 한다
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.jdbc.batch_versioned_data", "true");
         em.setJpaPropertyMap(properties);
 
         return em;
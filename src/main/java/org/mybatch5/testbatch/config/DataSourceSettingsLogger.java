@@ -0,0 +1,59 @@
+package org.mybatch5.testbatch.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ *  애플리케이션이 시작되면 meta / data 커넥션 풀의 실제 설정을 로그로 남긴다
+ *
+ *  동시에 필요한 커넥션 수
+ *      - 청크 트랜잭션(ChunkTransactionManager)은 청크마다 meta / data 커넥션을 하나씩 잡는다
+ *      - readMode=cursor step 은 reader(KeysetCursorItemReader)가 data 커넥션을 하나 더 step 이 끝날 때까지 잡는다
+ *      - 동시에 실행되는 step 스레드 = batchTaskExecutor 스레드(batch.executor.pool-size) + job 실행 스레드(batch.launcher.pool-size)
+ *      - 풀 크기가 이 값보다 작으면 worker 가 connection-timeout 까지 커넥션을 기다리다 실패할 수 있어서 경고를 남긴다
+ */
+@Slf4j
+@Component
+public class DataSourceSettingsLogger {
+
+    private final DataSource metaDBSource;
+    private final DataSource dataDBSource;
+    private final int requiredConnections;
+
+    public DataSourceSettingsLogger(@Qualifier("metaDBSource") DataSource metaDBSource,
+                                    @Qualifier("dataDBSource") DataSource dataDBSource,
+                                    @Value("${batch.executor.pool-size:4}") int executorPoolSize,
+                                    @Value("${batch.launcher.pool-size:2}") int launcherPoolSize) {
+        this.metaDBSource = metaDBSource;
+        this.dataDBSource = dataDBSource;
+        this.requiredConnections = executorPoolSize + launcherPoolSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logSettings() throws SQLException {
+        logSettings(metaDBSource.unwrap(HikariDataSource.class));
+        logSettings(dataDBSource.unwrap(HikariDataSource.class)); // SqlMetricsDataSource 로 감싸져 있을 수 있다
+    }
+
+    private void logSettings(HikariDataSource dataSource) {
+        log.info("DataSource {}: maximumPoolSize={}, minimumIdle={}, connectionTimeout={}ms, driverProperties={}",
+                dataSource.getPoolName(),
+                dataSource.getMaximumPoolSize(),
+                dataSource.getMinimumIdle(),
+                dataSource.getConnectionTimeout(),
+                dataSource.getDataSourceProperties());
+
+        if (dataSource.getMaximumPoolSize() < requiredConnections) {
+            log.warn("DataSource {}: maximumPoolSize {} is smaller than the {} step threads (batch.executor.pool-size + batch.launcher.pool-size)",
+                    dataSource.getPoolName(), dataSource.getMaximumPoolSize(), requiredConnections);
+        }
+    }
+}
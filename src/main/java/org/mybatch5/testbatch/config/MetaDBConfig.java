@@ -1,7 +1,6 @@
 package org.mybatch5.testbatch.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -19,6 +18,7 @@ public class MetaDBConfig {
      *
      * @ConfigurationProperties(prefix = "spring.datasource-meta")
      *  애플리케이션 application.properties 에서 spring.datasource-meta 로 시작하는 설정 값을 읽어 DataSource를 구성한다
+     *  HikariCP 풀 크기 / 드라이버 설정은 BatchDataSources 참고
      *  
      * metaTransactionManager() 메소드
      *  DataSourceTransactionManager를 사용하여 metaDBSource()로 생성한 DataSource에 대한 트랜잭션 관리자를 생성
@@ -28,7 +28,7 @@ public class MetaDBConfig {
     @Bean
     @ConfigurationProperties(prefix = "spring.datasource-meta")
     public DataSource metaDBSource() {
-        return DataSourceBuilder.create().build();
+        return BatchDataSources.create("meta-pool");
     }
 
     @Primary
@@ -0,0 +1,225 @@
+package org.mybatch5.testbatch.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ *  SQL 실행 시간을 Micrometer 로 기록하는 DataSource
+ *  (hibernate.show_sql 처럼 모든 SQL 을 출력하지 않고, 문장별 실행 횟수와 시간만 남긴다)
+ *
+ *  Connection / Statement 를 JDK 동적 프록시로 감싸고 execute* 호출의 시간만 잰다
+ *      - JPA(Hibernate), JdbcBatchItemWriter, JdbcTemplate, Spring Batch 메타 테이블 쓰기가 모두 포함된다
+ *      - executeBatch() 는 묶음 전체가 한 번으로 기록된다
+ *
+ *  batch.sql (Timer - 횟수 / 합계 / 최대)
+ *      - datasource : meta / data
+ *      - operation  : select / insert / update / delete / other
+ *      - statement  : 공백을 정리한 SQL 의 짧은 id (해시 8 자리)
+ *                     id 와 SQL 의 짝은 처음 실행할 때 INFO 로그로 한 번 남긴다 ("SQL metric statement ...")
+ *                     문장 종류가 MAX_STATEMENTS 를 넘거나 SQL 을 알 수 없는 경우(Statement.executeBatch) "other"
+ *
+ *  /actuator/metrics/batch.sql?tag=datasource:data&tag=operation:insert 처럼 조회한다
+ *
+ *  slowQueryMillis 가 0 보다 크면 그 시간 이상 걸린 SQL 을 WARN 로그로 남긴다
+ *
+ *  비용
+ *      - SQL 전체를 태그 값으로 쓰지 않으므로 meter 의 이름 / 태그 크기는 문장 수와 관계없이 작다
+ *      - percentileHistogram 은 timer 마다 버킷(약 70 개)을 만들기 때문에 기본으로는 끄고, 분포가 필요할 때만 켠다
+ *      - PreparedStatement 의 setString / setLong / addBatch 같은 호출도 프록시를 거친다 (실행 시간은 execute* 만 잰다)
+ *      - timer 는 원본 SQL 문자열로 캐시해서 공백 정리(normalize)는 문장 종류마다 한 번만 실행된다
+ */
+@Slf4j
+public class SqlMetricsDataSource extends DelegatingDataSource {
+
+    public static final String METRIC_NAME = "batch.sql";
+
+    static final int MAX_STATEMENTS = 200; // 캐시할 SQL 수 제한 (동적 SQL 로 meter 가 끝없이 늘어나지 않게)
+    static final String OTHER = "other";
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final String name;
+    private final Supplier<MeterRegistry> meterRegistry; // DataSource 가 MeterRegistry 보다 먼저 만들어지므로 처음 기록할 때 가져온다
+    private final long slowQueryNanos;
+    private final boolean percentileHistogram;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>(); // 원본 SQL -> timer
+
+    public SqlMetricsDataSource(DataSource targetDataSource, String name, Supplier<MeterRegistry> meterRegistry,
+                                long slowQueryMillis, boolean percentileHistogram) {
+        super(targetDataSource);
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryNanos = slowQueryMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryMillis) : Long.MAX_VALUE;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    // SQL 실행 한 번을 기록한다
+    void record(String sql, long elapsedNanos) {
+        timer(sql).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowQueryNanos) {
+            log.warn("Slow SQL on {} ({} ms): {}", name, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sql);
+        }
+    }
+
+    private Timer timer(String sql) {
+        String key = sql == null ? OTHER : sql;
+
+        Timer timer = timers.get(key); // 원본 SQL 로 찾는다 (normalize 는 처음 한 번만)
+        if (timer != null) {
+            return timer;
+        }
+        if (timers.size() >= MAX_STATEMENTS) {
+            key = OTHER;
+        }
+        return timers.computeIfAbsent(key, this::register);
+    }
+
+    private Timer register(String key) {
+        String statement = OTHER.equals(key) ? OTHER : normalize(key);
+        String statementId = OTHER.equals(key) ? OTHER : statementId(statement);
+        if (!OTHER.equals(statementId)) {
+            log.info("SQL metric statement {} on {}: {}", statementId, name, statement);
+        }
+
+        // 공백만 다른 SQL 은 같은 id 라서 같은 meter 를 반환한다
+        return Timer.builder(METRIC_NAME)
+                .tag("datasource", name)
+                .tag("operation", operation(statement))
+                .tag("statement", statementId)
+                .publishPercentileHistogram(percentileHistogram)
+                .register(meterRegistry.get());
+    }
+
+    // 줄바꿈 / 연속 공백을 공백 하나로
+    static String normalize(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    // 공백을 정리한 SQL 의 해시 (16 진수 8 자리)
+    static String statementId(String statement) {
+        return String.format("%08x", statement.hashCode());
+    }
+
+    static String operation(String statement) {
+        int end = statement.indexOf(' ');
+        String keyword = (end < 0 ? statement : statement.substring(0, end)).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "insert", "update", "delete" -> keyword;
+            default -> OTHER;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    // 프록시 자신의 equals / hashCode 는 대상 객체에 넘기지 않는다
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+
+            Object result = SqlMetricsDataSource.invoke(target, method, args);
+
+            return switch (method.getName()) {
+                case "createStatement" -> wrap(Statement.class, new StatementHandler((Statement) result, null));
+                case "prepareStatement" -> wrap(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" -> wrap(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql; // PreparedStatement 의 SQL (Statement 는 null)
+
+        private StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            if (!EXECUTE_METHODS.contains(method.getName())) {
+                return SqlMetricsDataSource.invoke(target, method, args);
+            }
+
+            // Statement.execute(sql) 는 인자의 SQL 을 사용한다
+            String executed = sql != null ? sql : (args != null && args.length > 0 && args[0] instanceof String s ? s : null);
+
+            long start = System.nanoTime();
+            try {
+                return SqlMetricsDataSource.invoke(target, method, args);
+            } finally {
+                record(executed, System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.mybatch5.testbatch.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ *  metaDBSource / dataDBSource 를 SqlMetricsDataSource 로 감싼다
+ *
+ *  batch.sql.metrics.enabled
+ *      - true (기본) : SQL 실행 시간을 batch.sql metric 으로 기록한다 (횟수 / 합계 / 최대 - 문장은 짧은 id 로 구분)
+ *      - false       : 감싸지 않는다 (커넥션 / Statement 프록시를 거치지 않는다)
+ *
+ *  batch.sql.metrics.histogram
+ *      - true 이면 percentile histogram 도 남긴다 (기본 false - timer 마다 버킷이 늘어나므로 분포를 볼 때만 켠다)
+ *
+ *  batch.sql.slow-query-ms
+ *      - 0 보다 크면 이 시간(ms) 이상 걸린 SQL 을 WARN 로그로 남긴다 (기본 0 - 남기지 않는다)
+ *
+ *  @ConfigurationProperties 바인딩이 끝난 뒤(postProcessAfterInitialization) 감싸므로 풀 설정은 그대로 적용된다
+ *  풀 자체(HikariDataSource)가 필요하면 dataSource.unwrap(HikariDataSource.class) 로 꺼낸다
+ */
+@Component
+public class SqlMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final Map<String, String> DATA_SOURCES = Map.of(
+            "metaDBSource", "meta",
+            "dataDBSource", "data"
+    ); // bean 이름 -> datasource 태그
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final long slowQueryMillis;
+    private final boolean histogram;
+
+    public SqlMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${batch.sql.metrics.enabled:true}") boolean enabled,
+                                   @Value("${batch.sql.slow-query-ms:0}") long slowQueryMillis,
+                                   @Value("${batch.sql.metrics.histogram:false}") boolean histogram) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.slowQueryMillis = slowQueryMillis;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String name = DATA_SOURCES.get(beanName);
+        if (!enabled || name == null || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return new SqlMetricsDataSource(dataSource, name, meterRegistry::getObject, slowQueryMillis, histogram);
+    }
+}
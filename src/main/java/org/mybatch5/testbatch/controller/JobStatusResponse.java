@@ -0,0 +1,80 @@
+package org.mybatch5.testbatch.controller;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ *  /jobs/{executionId} 의 응답
+ *
+ *  steps
+ *      - step 별 상태와 건수 (파티션 step 인 경우 worker step 들도 각각 포함된다)
+ *      - itemsPerSecond: writeCount / 실행 시간(초), 실행 중인 step 은 현재 시각까지의 시간으로 계산한다
+ */
+public record JobStatusResponse(Long executionId,
+                                String jobName,
+                                String status,
+                                String exitCode,
+                                LocalDateTime startTime,
+                                LocalDateTime endTime,
+                                List<StepStatus> steps) {
+
+    public record StepStatus(String stepName,
+                             String status,
+                             long readCount,
+                             long writeCount,
+                             long commitCount,
+                             long filterCount,
+                             long skipCount,
+                             long rollbackCount,
+                             long elapsedMillis,
+                             double itemsPerSecond) {
+
+        static StepStatus from(StepExecution stepExecution) {
+
+            long elapsedMillis = elapsedMillis(stepExecution.getStartTime(), stepExecution.getEndTime());
+            double itemsPerSecond = elapsedMillis > 0
+                    ? stepExecution.getWriteCount() * 1000.0 / elapsedMillis
+                    : 0.0;
+
+            return new StepStatus(
+                    stepExecution.getStepName(),
+                    stepExecution.getStatus().name(),
+                    stepExecution.getReadCount(),
+                    stepExecution.getWriteCount(),
+                    stepExecution.getCommitCount(),
+                    stepExecution.getFilterCount(),
+                    stepExecution.getSkipCount(),
+                    stepExecution.getRollbackCount(),
+                    elapsedMillis,
+                    itemsPerSecond);
+        }
+    }
+
+    public static JobStatusResponse from(JobExecution jobExecution) {
+
+        List<StepStatus> steps = jobExecution.getStepExecutions().stream()
+                .map(StepStatus::from)
+                .toList();
+
+        return new JobStatusResponse(
+                jobExecution.getId(),
+                jobExecution.getJobInstance().getJobName(),
+                jobExecution.getStatus().name(),
+                jobExecution.getExitStatus().getExitCode(),
+                jobExecution.getStartTime(),
+                jobExecution.getEndTime(),
+                steps);
+    }
+
+    private static long elapsedMillis(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) {
+            return 0L;
+        }
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        return Duration.between(startTime, end).toMillis();
+    }
+}
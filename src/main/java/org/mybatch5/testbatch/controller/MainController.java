@@ -1,29 +1,53 @@
 package org.mybatch5.testbatch.controller;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
 @Controller
 @ResponseBody
-@RequiredArgsConstructor
 public class MainController {
 
-    private final JobLauncher jobLauncher; // job을 실행하는 컴포넌트
+    private final JobLauncher jobLauncher; // job을 실행하는 컴포넌트 (요청 스레드에서 job 이 끝날 때까지 실행)
+    private final JobLauncher asyncJobLauncher; // job 을 별도의 스레드에서 실행하고 바로 반환하는 컴포넌트
 
     // 애플리케이션에 내에 등록된 배치 job들을 관리하는 레지스트리로 job의 이름을 기반으로 해당 job을 조회할 수 있다
     private final JobRegistry jobRegistry;
 
+    // 메타데이터 테이블에서 job 실행 기록을 조회한다 (비동기 실행 상태 확인)
+    private final JobExplorer jobExplorer;
+
+    public MainController(@Qualifier("jobLauncher") JobLauncher jobLauncher,
+                          @Qualifier("asyncJobLauncher") JobLauncher asyncJobLauncher,
+                          JobRegistry jobRegistry,
+                          JobExplorer jobExplorer) {
+        this.jobLauncher = jobLauncher;
+        this.asyncJobLauncher = asyncJobLauncher;
+        this.jobRegistry = jobRegistry;
+        this.jobExplorer = jobExplorer;
+    }
+
     // first 배치 - db의 테이블을 db의 다른 테이블로 복제하느 배치
         // beforeEntity 테이블을 AfterEntity 테이블로 값을 복사한다
     @GetMapping("/first")
-    public String firstApi(@RequestParam("value") String value) throws Exception {
+    public String firstApi(@RequestParam("value") String value,
+                           @RequestParam(value = "async", defaultValue = "false") boolean async,
+                           @RequestParam(value = "writeMode", defaultValue = "jpa") String writeMode,
+                           @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                           @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
         /**
          *  new JobParametersBuilder()
          *      job에 전달할 파라미터를 생성
@@ -31,11 +55,16 @@ public class MainController {
          *  addString("date", value)
          *      date 라는 이름의 파라미터에, 요청으로 전달받은 value 값을 저장
          *
+         *  addString("writeMode", writeMode, false)
+         *      저장 방식 (jpa: save 반복, jdbc: JDBC batch INSERT) - 식별 파라미터에서 제외
+         *
          *  toJobParameters()
          *      생성된 jobParameters 는 배치 job의 실행에 필요한 입력값으로 사용된다
          */
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addString("writeMode", writeMode, false)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         /**
@@ -45,115 +74,281 @@ public class MainController {
          *  jobLauncher.run()
          *      조회된 job을 jobLauncher 를 통해 실행된다
          *      생성한 jobParameters 를 함께 전달되어, 배치 작업 내에서 해당 파라미터를 사용할 수 있다
+         *
+         *  async=true
+         *      asyncJobLauncher 로 실행하고 job 이 끝나기를 기다리지 않고 JobExecution id 를 반환한다
+         *      진행 상황은 /jobs/{executionId} 로 조회한다
          */
-        jobLauncher.run(jobRegistry.getJob("firstJob"), jobParameters);
-
-        return "ok";
+        return launch("firstJob", jobParameters, async);
     }
     
     // second 배치 - 테이블의 특정 컬럼의 값을 확인해 다른 컬럼의 값을 변경하는 배치
         // win 컬럼이 10을 넘으면 reward 컬럼에 true 추가
     @GetMapping("/second")
-    public String secondApi(@RequestParam("value") String value) throws Exception {
+    public String secondApi(@RequestParam("value") String value,
+                            @RequestParam(value = "async", defaultValue = "false") boolean async,
+                            @RequestParam(value = "writeMode", defaultValue = "jpa") String writeMode,
+                            @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                            @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
-        // 잡 파라미터 생성
+        // 잡 파라미터 생성 (writeMode - jpa: save 반복, stateless: Hibernate StatelessSession batch UPDATE)
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addString("writeMode", writeMode, false)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
-        jobLauncher.run(jobRegistry.getJob("secondJob"), jobParameters);
-
-        return "ok";
+        return launch("secondJob", jobParameters, async);
     }
 
     // fourth 배치 - 엑셀을 db로 읽어오는 배치
     @GetMapping("/fourth")
-    public String fourthApi(@RequestParam("value") String value) throws Exception {
+    public String fourthApi(@RequestParam("value") String value,
+                            @RequestParam(value = "async", defaultValue = "false") boolean async,
+                            @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                            @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
         
         // jop 파라미터 생성
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("fourthJob"), jobParameters);
-
-        return "ok";
+        return launch("fourthJob", jobParameters, async);
     }
 
     // fourth 배치 - 엑셀을 db로 읽어오는 배치
     @GetMapping("/fifth")
-    public String fifthApi(@RequestParam("value") String value) throws Exception {
+    public String fifthApi(@RequestParam("value") String value,
+                           @RequestParam(value = "async", defaultValue = "false") boolean async,
+                           @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                           @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
         // jop 파라미터 생성
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("fifthJob"), jobParameters);
-
-        return "ok";
+        return launch("fifthJob", jobParameters, async);
     }
 
     // sixth 배치 - 
     @GetMapping("/sixth")
-    public String sixthApi(@RequestParam("value") String value) throws Exception {
+    public String sixthApi(@RequestParam("value") String value,
+                           @RequestParam(value = "async", defaultValue = "false") boolean async,
+                           @RequestParam(value = "readMode", defaultValue = "paging") String readMode,
+                           @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                           @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
         // jop 파라미터 생성
+            // readMode (paging: 페이지마다 쿼리, cursor: 커서 하나로 스트리밍) - 식별 파라미터에서 제외, 재시작할 때는 같은 값을 사용한다
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addString("readMode", readMode, false)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("sixthJob"), jobParameters);
+        return launch("sixthJob", jobParameters, async);
+    }
+
+    // sixth 배치 (파티셔닝) - id 범위를 gridSize 개로 나누어 여러 스레드에서 복사
+    @GetMapping("/sixthPartition")
+    public String sixthPartitionApi(@RequestParam("value") String value,
+                                    @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                    @RequestParam(value = "gridSize", defaultValue = "4") Long gridSize,
+                                    @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                                    @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
+
+        // jop 파라미터 생성
+            // gridSize 는 재시작 시 바꿀 수 있도록 식별 파라미터에서 제외한다
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("data", value)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
+                .addLong("gridSize", gridSize, false)
+                .toJobParameters();
 
-        return "ok";
+        // jop 실행
+        return launch("sixthPartitionJob", jobParameters, async);
     }
 
     // seventh 배치 - WinEntity win>=10 인 경우 WinEntity reward = true 변경 배치
     @GetMapping("/seventh")
-    public String seventhApi(@RequestParam("value") String value) throws Exception {
+    public String seventhApi(@RequestParam("value") String value,
+                             @RequestParam(value = "async", defaultValue = "false") boolean async,
+                             @RequestParam(value = "readMode", defaultValue = "paging") String readMode,
+                             @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                             @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
         // jop 파라미터 생성
+            // readMode (paging: 페이지마다 쿼리, cursor: 커서 하나로 스트리밍) - 식별 파라미터에서 제외, 재시작할 때는 같은 값을 사용한다
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addString("readMode", readMode, false)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("seventhJob"), jobParameters);
+        return launch("seventhJob", jobParameters, async);
+    }
+
+    // seventh 배치 (SQL) - seventh 배치와 같은 처리를 id 구간별 UPDATE 문으로 실행
+    @GetMapping("/seventhSql")
+    public String seventhSqlApi(@RequestParam("value") String value,
+                                @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                @RequestParam(value = "sliceSize", defaultValue = "10000") Long sliceSize) throws Exception {
 
-        return "ok";
+        // jop 파라미터 생성
+            // sliceSize 는 재시작 시 바꿀 수 있도록 식별 파라미터에서 제외한다
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("data", value)
+                .addLong("sliceSize", sliceSize, false)
+                .toJobParameters();
+
+        // jop 실행
+        return launch("seventhSqlJob", jobParameters, async);
     }
 
     // csvReaderJob 배치
     @GetMapping("/csvReaderJob")
-    public String csvReaderJobApi(@RequestParam("value") String value) throws Exception {
+    public String csvReaderJobApi(@RequestParam("value") String value,
+                                  @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                  @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                                  @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
         // jop 파라미터 생성
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("csvReaderJob"), jobParameters);
+        return launch("csvReaderJob", jobParameters, async);
+    }
+
+    // CsvReaderBatch 파티셔닝 배치
+    @GetMapping("/csvPartitionJob")
+    public String csvPartitionJobApi(@RequestParam("value") String value,
+                                     @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                     @RequestParam(value = "input", required = false) String input,
+                                     @RequestParam(value = "gridSize", defaultValue = "4") Long gridSize,
+                                     @RequestParam(value = "chunkSize", required = false) Long chunkSize) throws Exception {
+
+        // jop 파라미터 생성
+            // input, gridSize 는 구간 경계가 바뀌면 파티션별 체크포인트가 맞지 않으므로 식별 파라미터로 둔다
+        JobParametersBuilder builder = new JobParametersBuilder()
+                .addString("data", value)
+                .addLong("gridSize", gridSize)
+                .addJobParameters(batchSizes(chunkSize, null));
+        if (input != null) {
+            builder.addString("input", input);
+        }
 
-        return "ok";
+        // jop 실행
+        return launch("csvPartitionJob", builder.toJobParameters(), async);
     }
 
     // ReadExcelJDBCWriterBatch 배치
     @GetMapping("/excelReadJob")
-    public String excelReadJobApi(@RequestParam("value") String value) throws Exception {
+    public String excelReadJobApi(@RequestParam("value") String value,
+                                  @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                  @RequestParam(value = "chunkSize", required = false) Long chunkSize,
+                                  @RequestParam(value = "pageSize", required = false) Long pageSize) throws Exception {
 
         // jop 파라미터 생성
         JobParameters jobParameters = new JobParametersBuilder()
                 .addString("data", value)
+                .addJobParameters(batchSizes(chunkSize, pageSize))
                 .toJobParameters();
 
         // jop 실행
-        jobLauncher.run(jobRegistry.getJob("excelReadJob"), jobParameters);
+        return launch("excelReadJob", jobParameters, async);
+    }
+
+    // ReadExcelJDBCWriterBatch 배치 (파티셔닝) - 모든 시트를 시트 / 행 구간별로 나누어 여러 스레드에서 저장
+    @GetMapping("/excelReadPartitionJob")
+    public String excelReadPartitionJobApi(@RequestParam("value") String value,
+                                           @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                           @RequestParam(value = "rowsPerPartition", defaultValue = "100000") Long rowsPerPartition,
+                                           @RequestParam(value = "chunkSize", required = false) Long chunkSize) throws Exception {
 
-        return "ok";
+        // jop 파라미터 생성
+            // rowsPerPartition 은 구간 경계가 바뀌면 파티션별 체크포인트가 맞지 않으므로 식별 파라미터로 둔다
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("data", value)
+                .addLong("rowsPerPartition", rowsPerPartition)
+                .addJobParameters(batchSizes(chunkSize, null))
+                .toJobParameters();
+
+        // jop 실행
+        return launch("excelReadPartitionJob", jobParameters, async);
+    }
+
+    /**
+     *  job 실행 상태 조회
+     *      - 비동기로 실행한 job 의 JobExecution id 로 job / step 의 상태, 읽기/쓰기 건수, 처리량을 조회한다
+     *      - 메타데이터 테이블을 조회하기 때문에 동기로 실행한 job, 다른 인스턴스에서 실행한 job 도 조회할 수 있다
+     */
+    @GetMapping("/jobs/{executionId}")
+    public JobStatusResponse jobStatusApi(@PathVariable("executionId") Long executionId) {
+
+        JobExecution jobExecution = jobExplorer.getJobExecution(executionId);
+        if (jobExecution == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "JobExecution not found: " + executionId);
+        }
+
+        return JobStatusResponse.from(jobExecution);
     }
 
+    /**
+     *  job 실행
+     *      - async=false : 기존처럼 요청 스레드에서 job 이 끝날 때까지 실행하고 "ok" 를 반환
+     *      - async=true  : asyncJobLauncher 에 맡기고 JobExecution id 를 바로 반환
+     *                      실행 대기열까지 가득 찬 경우 503 을 반환한다
+     *                      (batch.executor.type=virtual 이면 대기열이 없어서 거절하지 않고, 실행 자리가 날 때까지 요청이 기다린다)
+     *
+     *  대기열이 가득 찬 경우
+     *      - TaskExecutorJobLauncher 는 TaskRejectedException 을 던지지 않고 직접 잡아서
+     *        JobExecution 을 FAILED 로 저장한 뒤 정상적으로 반환한다 (exit description 에 예외가 기록된다)
+     *      - 그래서 예외가 아니라 반환된 JobExecution 의 상태로 거절 여부를 확인한다
+     */
+    private String launch(String jobName, JobParameters jobParameters, boolean async) throws Exception {
+
+        if (!async) {
+            jobLauncher.run(jobRegistry.getJob(jobName), jobParameters);
+            return "ok";
+        }
+
+        JobExecution jobExecution = asyncJobLauncher.run(jobRegistry.getJob(jobName), jobParameters);
+        if (isRejected(jobExecution)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Job launcher queue is full: " + jobName);
+        }
+        return String.valueOf(jobExecution.getId());
+    }
+
+    // 실행 대기열이 가득 차서 launcher 가 FAILED 로 저장한 JobExecution 인지 확인
+    private boolean isRejected(JobExecution jobExecution) {
+        return jobExecution.getStatus() == BatchStatus.FAILED
+                && jobExecution.getExitStatus().getExitDescription().contains(TaskRejectedException.class.getName());
+    }
+
+    /**
+     *  청크 크기 / 페이지 크기 job 파라미터
+     *      - 요청에 chunkSize, pageSize 가 있으면 job 파라미터로 추가한다 (없으면 BatchSizes 의 기본값 사용)
+     *      - 식별 파라미터(identifying)에서 제외해서, 같은 value 로 재시작할 때 크기를 바꿔도 같은 JobInstance 로 인식된다
+     */
+    private JobParameters batchSizes(Long chunkSize, Long pageSize) {
+
+        JobParametersBuilder builder = new JobParametersBuilder();
+        if (chunkSize != null) {
+            builder.addLong("chunkSize", chunkSize, false);
+        }
+        if (pageSize != null) {
+            builder.addLong("pageSize", pageSize, false);
+        }
+        return builder.toJobParameters();
+    }
 }
@@ -0,0 +1,19 @@
+package org.mybatch5.testbatch.entity;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// AfterEntity INSERT 의 ? 에 값을 넣는 setter (firstJob - writeMode=jdbc, sixthJob)
+public class AfterEntityInsertSetter implements ItemPreparedStatementSetter<AfterEntity> {
+
+    public static final String SQL = "INSERT INTO AfterEntity (username) VALUES (?)";
+
+    @Override
+    public void setValues(AfterEntity item, PreparedStatement ps) throws SQLException {
+
+        ps.setString(1, item.getUsername());
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.mybatch5.testbatch.entity;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// WinEntity INSERT 의 ? 에 값을 넣는 setter (csvReaderJob, excelReadJob)
+public class WinEntityInsertSetter implements ItemPreparedStatementSetter<WinEntity> {
+
+    public static final String SQL = "INSERT INTO WinEntity (username, win, reward) VALUES (?, ?, ?)";
+
+    @Override
+    public void setValues(WinEntity item, PreparedStatement ps) throws SQLException {
+
+        ps.setString(1, item.getUsername());
+
+        if (item.getWin() != null) {
+            ps.setLong(2, item.getWin());
+        } else {
+            ps.setNull(2, Types.BIGINT);
+        }
+
+        if (item.getReward() != null) {
+            ps.setBoolean(3, item.getReward());
+        } else {
+            ps.setNull(3, Types.BOOLEAN);
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.mybatch5.testbatch.entity;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// seventh 배치 JdbcPagingItemReader 에서 사용하는 매퍼 (SELECT id, win, reward)
+public class WinRewardRowMapper implements RowMapper<WinEntity> {
+
+    public static final String ID_COLUMN = "id";
+    public static final String WIN_COLUMN = "win";
+    public static final String REWARD_COLUMN = "reward";
+
+    @Override
+    public WinEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+
+        WinEntity winEntity = new WinEntity();
+
+        winEntity.setId(rs.getLong(ID_COLUMN));
+        winEntity.setWin(rs.getObject(WIN_COLUMN, Long.class));
+        winEntity.setReward(rs.getObject(REWARD_COLUMN, Boolean.class));
+
+        return winEntity;
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.mybatch5.testbatch.entity;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// WinEntity 의 reward 를 id 로 갱신하는 UPDATE 의 ? 에 값을 넣는 setter (seventhJob)
+public class WinRewardUpdateSetter implements ItemPreparedStatementSetter<WinEntity> {
+
+    public static final String SQL = "UPDATE WinEntity SET reward = ? WHERE id = ?";
+
+    @Override
+    public void setValues(WinEntity item, PreparedStatement ps) throws SQLException {
+
+        if (item.getReward() != null) {
+            ps.setBoolean(1, item.getReward());
+        } else {
+            ps.setNull(1, Types.BOOLEAN);
+        }
+        ps.setLong(2, item.getId());
+    }
+
+}
@@ -0,0 +1,280 @@
+package org.mybatch5.testbatch.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.builder.AbstractTaskletStepBuilder;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  step 의 각 단계 시간을 Micrometer 로 기록하는 listener 묶음
+ *
+ *  모든 meter 에 job, step 태그가 붙는다 (파티션 worker 는 "sixthWorkerStep:partition0" 에서 ":" 앞부분만 사용한다)
+ *
+ *  batch.item.read      (Timer)   - read() 한 건의 시간
+ *  batch.item.process   (Timer)   - process() 한 건의 시간
+ *  batch.chunk.write    (Timer)   - write() 한 번(청크 하나)의 시간
+ *  batch.chunk.commit   (Timer)   - write() 가 끝난 뒤 트랜잭션이 커밋될 때까지의 시간 (ExecutionContext 저장 포함)
+ *  batch.chunk.duration (Timer)   - 청크 하나 전체의 시간
+ *  batch.chunk.items    (Summary) - 청크 하나에서 write 한 건수
+ *  batch.item.skip      (Counter) - phase 태그(read / process / write) 별 skip 건수 (faultTolerant step)
+ *  batch.item.retry     (Counter) - 재시도 건수 (faultTolerant step)
+ *
+ *  /actuator/metrics/batch.item.read?tag=step:firstStep 처럼 조회한다
+ *  (management.endpoints.web.exposure.include 에 metrics 가 포함되어 있어야 한다)
+ *
+ *  사용법
+ *      - 여러 listener 인터페이스를 구현하고 있어서 .listener(batchMetricsListener) 는 오버로딩이 모호하다
+ *      - 대신 applyTo(builder) 로 step builder 에 맞는 인터페이스만 등록한다
+ *
+ *  청크는 한 스레드에서 처음부터 끝까지 실행되므로 시작 시각은 ThreadLocal 에 둔다
+ *  meter 는 step 실행마다 한 번만 만들고 (beforeStep) 행마다 registry 를 조회하지 않는다
+ */
+@Component
+public class BatchMetricsListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object>,
+        SkipListener<Object, Object>, RetryListener {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, StepMeters> stepMeters = new ConcurrentHashMap<>(); // StepExecution id -> meter
+    private final ThreadLocal<Timing> timing = ThreadLocal.withInitial(Timing::new);
+
+    public BatchMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     *  step builder 에 listener 를 등록한다
+     *      - 모든 step            : StepExecutionListener, ChunkListener
+     *      - 청크 step            : ItemReadListener, ItemProcessListener, ItemWriteListener
+     *      - faultTolerant step   : SkipListener, RetryListener
+     */
+    public <B extends AbstractTaskletStepBuilder<?>> B applyTo(B builder) {
+
+        builder.listener((StepExecutionListener) this);
+        builder.listener((ChunkListener) this);
+
+        if (builder instanceof SimpleStepBuilder<?, ?> chunkBuilder) {
+            chunkBuilder.listener((ItemReadListener<Object>) this);
+            chunkBuilder.listener((ItemProcessListener<Object, Object>) this);
+            chunkBuilder.listener((ItemWriteListener<Object>) this);
+        }
+        if (builder instanceof FaultTolerantStepBuilder<?, ?> faultTolerantBuilder) {
+            faultTolerantBuilder.listener((SkipListener<Object, Object>) this);
+            faultTolerantBuilder.listener((RetryListener) this);
+        }
+        return builder;
+    }
+
+    // ======= step ======= //
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        stepMeters.put(stepExecution.getId(), new StepMeters(meterRegistry, stepExecution));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        stepMeters.remove(stepExecution.getId());
+        timing.remove();
+        return stepExecution.getExitStatus();
+    }
+
+    // ======= chunk ======= //
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        Timing t = timing.get();
+        t.chunkStart = System.nanoTime();
+        t.writeEnd = 0L;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepMeters meters = meters();
+        if (meters == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        Timing t = timing.get();
+        if (t.writeEnd > 0) {
+            meters.commit.record(now - t.writeEnd, TimeUnit.NANOSECONDS);
+        }
+        if (t.chunkStart > 0) {
+            meters.chunk.record(now - t.chunkStart, TimeUnit.NANOSECONDS);
+        }
+        t.chunkStart = 0L;
+        t.writeEnd = 0L;
+    }
+
+    // ======= read ======= //
+    @Override
+    public void beforeRead() {
+        timing.get().readStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.read.record(System.nanoTime() - timing.get().readStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ======= process ======= //
+    @Override
+    public void beforeProcess(Object item) {
+        timing.get().processStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.process.record(System.nanoTime() - timing.get().processStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ======= write ======= //
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+        timing.get().writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        StepMeters meters = meters();
+        if (meters == null) {
+            return;
+        }
+
+        Timing t = timing.get();
+        t.writeEnd = System.nanoTime();
+        meters.write.record(t.writeEnd - t.writeStart, TimeUnit.NANOSECONDS);
+        meters.items.record(items.size());
+    }
+
+    // ======= skip / retry ======= //
+    @Override
+    public void onSkipInRead(Throwable t) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.readSkip.increment();
+        }
+    }
+
+    @Override
+    public void onSkipInProcess(Object item, Throwable t) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.processSkip.increment();
+        }
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.writeSkip.increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        StepMeters meters = meters();
+        if (meters != null) {
+            meters.retry.increment();
+        }
+    }
+
+    // 현재 스레드에서 실행 중인 step 의 meter
+    private StepMeters meters() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return null;
+        }
+        return stepMeters.get(context.getStepExecution().getId());
+    }
+
+    // 청크 안의 각 단계 시작 시각 (스레드별)
+    private static final class Timing {
+        private long chunkStart;
+        private long readStart;
+        private long processStart;
+        private long writeStart;
+        private long writeEnd;
+    }
+
+    // step 실행 하나의 meter 묶음
+    private static final class StepMeters {
+
+        private final Timer read;
+        private final Timer process;
+        private final Timer write;
+        private final Timer commit;
+        private final Timer chunk;
+        private final DistributionSummary items;
+        private final Counter readSkip;
+        private final Counter processSkip;
+        private final Counter writeSkip;
+        private final Counter retry;
+
+        private StepMeters(MeterRegistry registry, StepExecution stepExecution) {
+            String job = stepExecution.getJobExecution().getJobInstance().getJobName();
+            String step = stepExecution.getStepName();
+            int partitionSeparator = step.indexOf(':');
+            if (partitionSeparator > 0) {
+                step = step.substring(0, partitionSeparator);
+            }
+
+            this.read = timer(registry, "batch.item.read", job, step);
+            this.process = timer(registry, "batch.item.process", job, step);
+            this.write = timer(registry, "batch.chunk.write", job, step);
+            this.commit = timer(registry, "batch.chunk.commit", job, step);
+            this.chunk = timer(registry, "batch.chunk.duration", job, step);
+            this.items = DistributionSummary.builder("batch.chunk.items")
+                    .tag("job", job).tag("step", step)
+                    .register(registry);
+            this.readSkip = skipCounter(registry, "read", job, step);
+            this.processSkip = skipCounter(registry, "process", job, step);
+            this.writeSkip = skipCounter(registry, "write", job, step);
+            this.retry = Counter.builder("batch.item.retry")
+                    .tag("job", job).tag("step", step)
+                    .register(registry);
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String job, String step) {
+            return Timer.builder(name)
+                    .tag("job", job).tag("step", step)
+                    .register(registry);
+        }
+
+        private static Counter skipCounter(MeterRegistry registry, String phase, String job, String step) {
+            return Counter.builder("batch.item.skip")
+                    .tag("job", job).tag("step", step).tag("phase", phase)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.mybatch5.testbatch.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mybatch5.testbatch.batch.RejectedRowException;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  skip 된 RejectedRowException 을 csv 파일에 기록하는 SkipListener
+ *
+ *  형식: source,row,reason,detail,value1,value2,...  (row 는 엑셀에서 보이는 1 부터 시작하는 행 번호)
+ *
+ *  - 파일은 첫 reject 가 생길 때 만든다 (reject 가 없으면 파일도 없다)
+ *  - 재시작하면 같은 파일 뒤에 이어서 쓴다
+ *  - skip listener 는 청크를 커밋하기 직전에 호출되므로, 커밋이 실패해서 청크를 다시 처리하면 같은 행이 한 번 더 기록될 수 있다
+ *  - step 에 .stream() 으로도 등록해서 step 이 끝날 때 close() 로 파일을 닫는다
+ *  - 파티션 worker 마다 다른 파일을 쓰도록 @StepScope 빈으로 만든다
+ */
+@Slf4j
+public class RejectedRowCsvWriter implements SkipListener<Object, Object>, ItemStream {
+
+    private static final String HEADER = "source,row,reason,detail,values";
+
+    private final Path file;
+    private BufferedWriter writer;
+    private long rejectCount;
+
+    public RejectedRowCsvWriter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        if (t instanceof RejectedRowException rejected) {
+            write(rejected);
+        }
+    }
+
+    @Override
+    public void onSkipInProcess(Object item, Throwable t) {
+        if (t instanceof RejectedRowException rejected) {
+            write(rejected);
+        }
+    }
+
+    private void write(RejectedRowException rejected) {
+        try {
+            if (writer == null) {
+                open();
+            }
+
+            StringBuilder line = new StringBuilder();
+            line.append(csv(rejected.getSource())).append(',')
+                    .append(rejected.getRowNum() + 1).append(',')
+                    .append(rejected.getReason()).append(',')
+                    .append(csv(rejected.getDetail()));
+            for (String value : rejected.getRawValues()) {
+                line.append(',').append(csv(value));
+            }
+
+            writer.write(line.toString());
+            writer.newLine();
+            writer.flush(); // 청크가 커밋되기 전에 디스크에 남긴다
+            rejectCount++;
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to write reject file: " + file, e);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean exists = Files.exists(file);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (!exists) {
+            writer.write(HEADER);
+            writer.newLine();
+        }
+    }
+
+    // 쉼표, 따옴표, 줄바꿈이 있는 값만 따옴표로 감싼다
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        rejectCount = 0;
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+            log.info("{} rejected rows written to {}", rejectCount, file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close reject file: " + file, e);
+        } finally {
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.mybatch5.testbatch.mapping;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ *  열 번호가 정해진 ColumnMapping (ColumnMapping.bind() 로 만든다)
+ *
+ *  map() 은 행마다 엔티티 하나만 만들고, 열 번호 배열을 따라 setter 를 호출한다
+ *  잘못된 행이면 null 을 반환한다 - 사유가 필요하면 그 행에서만 describeInvalid() / rawValues() 를 호출한다
+ *
+ *  reader 하나가 한 스레드에서 사용한다 (상태는 없지만 reader 와 같은 생명주기로 만든다)
+ */
+public final class ColumnMapper<T> {
+
+    private final Supplier<T> factory;
+    private final ColumnMapping.Column<T, ?>[] columns;
+    private final int[] indexes;
+
+    @SuppressWarnings("unchecked")
+    ColumnMapper(Supplier<T> factory, List<ColumnMapping.Column<T, ?>> columns, int[] indexes) {
+        this.factory = factory;
+        this.columns = columns.toArray(new ColumnMapping.Column[0]);
+        this.indexes = indexes;
+    }
+
+    public T map(ColumnValues values) {
+        T target = factory.get();
+        for (int i = 0; i < columns.length; i++) {
+            if (!apply(columns[i], target, raw(values, i), accepts(values, i))) {
+                return null;
+            }
+        }
+        return target;
+    }
+
+    // accepted 가 false 이면 (엑셀의 타입이 다른 셀) 값이 없는 것으로 본다
+    private static <T, V> boolean apply(ColumnMapping.Column<T, V> column, T target, String raw, boolean accepted) {
+        if (raw == null || raw.isEmpty() || !accepted) {
+            return !column.required;
+        }
+        V value = column.type.parse(raw);
+        if (value == null) {
+            return false;
+        }
+        column.setter.accept(target, value);
+        return true;
+    }
+
+    /**
+     *  잘못된 열의 목록 (예: "username: missing; win: expected LONG but was 'abc'")
+     */
+    public String describeInvalid(ColumnValues values) {
+        StringBuilder detail = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            ColumnMapping.Column<T, ?> column = columns[i];
+            String raw = raw(values, i);
+
+            String problem;
+            if (raw == null || raw.isEmpty()) {
+                problem = column.required ? "missing" : null;
+            } else if (!accepts(values, i)) {
+                problem = column.required ? "expected " + column.type + " but was '" + raw + "'" : null;
+            } else {
+                problem = column.type.parse(raw) == null ? "expected " + column.type + " but was '" + raw + "'" : null;
+            }
+
+            if (problem != null) {
+                if (detail.length() > 0) {
+                    detail.append("; ");
+                }
+                detail.append(column.header).append(": ").append(problem);
+            }
+        }
+        return detail.toString();
+    }
+
+    // 매핑에 정의된 순서대로 원본 값 (reject 파일 기록용)
+    public String[] rawValues(ColumnValues values) {
+        String[] raw = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            raw[i] = raw(values, i);
+        }
+        return raw;
+    }
+
+    private String raw(ColumnValues values, int column) {
+        int index = indexes[column];
+        return index < 0 ? null : values.get(index);
+    }
+
+    private boolean accepts(ColumnValues values, int column) {
+        int index = indexes[column];
+        return index < 0 || values.accepts(index, columns[column].type);
+    }
+}
@@ -0,0 +1,118 @@
+package org.mybatch5.testbatch.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ *  헤더 이름과 엔티티 setter 를 짝지은 매핑 정의
+ *
+ *  ColumnMapping<WinEntity> mapping = ColumnMapping.builder(WinEntity::new)
+ *          .optional("id", ColumnType.LONG, WinEntity::setId)
+ *          .required("username", ColumnType.STRING, WinEntity::setUsername)
+ *          .build();
+ *
+ *  정의만 가지고 있고 열 번호는 모른다
+ *      - bindPositions() : 정의한 순서대로 0, 1, 2 ... 번 열 (reader 의 기본값 - 헤더의 내용은 보지 않는다)
+ *      - bind(header)    : 헤더 행의 이름으로 열 번호를 정한다 (reader 의 setBindByHeader(true) 인 경우)
+ *        열 순서가 다른 파일도 읽을 수 있지만, 헤더 이름이 다르면(번역된 헤더, 빈 헤더) open() 에서 실패한다
+ *
+ *  BeanWrapperFieldSetMapper / BeanPropertyRowMapper 는 행마다 이름으로 프로퍼티를 찾고 리플렉션으로 값을 넣는다
+ *  ColumnMapper 는 열 번호 배열과 setter 람다만 가지고 있어서 행마다 이름을 찾지 않는다
+ */
+public final class ColumnMapping<T> {
+
+    private final Supplier<T> factory;
+    private final List<Column<T, ?>> columns;
+
+    private ColumnMapping(Supplier<T> factory, List<Column<T, ?>> columns) {
+        this.factory = factory;
+        this.columns = List.copyOf(columns);
+    }
+
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     *  헤더 행의 값으로 열 번호를 정한다
+     *      - 앞뒤 공백, 대소문자는 무시한다
+     *      - 필수 열이 헤더에 없으면 IllegalStateException (파일 형식이 다르면 시작할 때 바로 실패한다)
+     *      - 선택 열이 헤더에 없으면 값을 넣지 않는다
+     */
+    public ColumnMapper<T> bind(String[] header) {
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            Column<T, ?> column = columns.get(i);
+            indexes[i] = indexOf(header, column.header);
+            if (indexes[i] < 0 && column.required) {
+                throw new IllegalStateException("Column '" + column.header + "' not found in header " + Arrays.toString(header));
+            }
+        }
+        return new ColumnMapper<>(factory, columns, indexes);
+    }
+
+    // 헤더가 없는 파일 - 정의한 순서가 열 순서
+    public ColumnMapper<T> bindPositions() {
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        return new ColumnMapper<>(factory, columns, indexes);
+    }
+
+    private static int indexOf(String[] header, String name) {
+        String expected = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < header.length; i++) {
+            if (header[i] != null && header[i].trim().toLowerCase(Locale.ROOT).equals(expected)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 열 하나의 정의
+    static final class Column<T, V> {
+
+        final String header;
+        final ColumnType<V> type;
+        final BiConsumer<T, V> setter;
+        final boolean required;
+
+        private Column(String header, ColumnType<V> type, BiConsumer<T, V> setter, boolean required) {
+            this.header = header;
+            this.type = type;
+            this.setter = setter;
+            this.required = required;
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final Supplier<T> factory;
+        private final List<Column<T, ?>> columns = new ArrayList<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        // 값이 없거나 변환할 수 없으면 잘못된 행
+        public <V> Builder<T> required(String header, ColumnType<V> type, BiConsumer<T, V> setter) {
+            columns.add(new Column<>(header, type, setter, true));
+            return this;
+        }
+
+        // 값이 없으면 setter 를 호출하지 않는다 (값이 있는데 변환할 수 없으면 잘못된 행)
+        public <V> Builder<T> optional(String header, ColumnType<V> type, BiConsumer<T, V> setter) {
+            columns.add(new Column<>(header, type, setter, false));
+            return this;
+        }
+
+        public ColumnMapping<T> build() {
+            return new ColumnMapping<>(factory, columns);
+        }
+    }
+}
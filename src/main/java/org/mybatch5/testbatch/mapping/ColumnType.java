@@ -0,0 +1,61 @@
+package org.mybatch5.testbatch.mapping;
+
+import java.util.function.Function;
+
+/**
+ *  원본 문자열을 필드 타입으로 바꾸는 변환기
+ *
+ *  parse() 는 변환할 수 없는 값이면 예외 대신 null 을 반환한다
+ *  (잘못된 행은 ColumnMapper 가 null 로 알리고, 사유는 그 행에서만 describeInvalid() 로 만든다)
+ *
+ *  엑셀 셀의 원본 값 기준
+ *      - 숫자 셀은 "10" 또는 "10.0" 처럼 들어있다
+ *      - boolean 셀은 "1" / "0" 으로 들어있다
+ */
+public final class ColumnType<V> {
+
+    public static final ColumnType<String> STRING = new ColumnType<>("STRING", raw -> raw);
+    public static final ColumnType<Long> LONG = new ColumnType<>("LONG", ColumnType::parseLong);
+    public static final ColumnType<Boolean> BOOLEAN = new ColumnType<>("BOOLEAN", ColumnType::parseBoolean);
+
+    private final String name;
+    private final Function<String, V> parser;
+
+    private ColumnType(String name, Function<String, V> parser) {
+        this.name = name;
+        this.parser = parser;
+    }
+
+    public V parse(String raw) {
+        return parser.apply(raw);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static Long parseLong(String raw) {
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException e) {
+            // 엑셀 숫자 셀은 "10.0" 처럼 소수점이 붙어 있을 수 있다
+        }
+        try {
+            double value = Double.parseDouble(raw);
+            return value == Math.rint(value) && !Double.isInfinite(value) ? (long) value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean parseBoolean(String raw) {
+        if ("1".equals(raw) || "true".equalsIgnoreCase(raw)) {
+            return Boolean.TRUE;
+        }
+        if ("0".equals(raw) || "false".equalsIgnoreCase(raw)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package org.mybatch5.testbatch.mapping;
+
+/**
+ *  한 행의 원본 문자열 값을 열 번호로 꺼내는 인터페이스
+ *
+ *  ExcelRow 는 직접 구현하고, csv 의 FieldSet 은 MappedFieldSetMapper 가 람다로 감싸서 넘긴다
+ *  열이 없으면 null 을 반환한다
+ */
+@FunctionalInterface
+public interface ColumnValues {
+
+    String get(int index);
+
+    /**
+     *  열의 값이 type 으로 읽을 수 있는 종류인지
+     *      - csv 처럼 값이 모두 문자열이면 항상 true (변환은 ColumnType.parse 가 확인한다)
+     *      - 엑셀은 셀 타입을 확인한다 (ExcelRow 참고) - 타입이 다른 셀은 값이 없는 것으로 본다
+     */
+    default boolean accepts(int index, ColumnType<?> type) {
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package org.mybatch5.testbatch.mapping;
+
+import org.mybatch5.testbatch.entity.AfterEntity;
+import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.mybatch5.testbatch.entity.WinEntity;
+
+/**
+ *  파일(엑셀 / csv)의 헤더 이름과 엔티티 필드의 매핑
+ *
+ *  id 는 DB 가 만들기 때문에 파일에 있어도 되고 없어도 된다
+ */
+public final class EntityMappings {
+
+    public static final ColumnMapping<WinEntity> WIN_ENTITY = ColumnMapping.builder(WinEntity::new)
+            .optional("id", ColumnType.LONG, WinEntity::setId)
+            .required("username", ColumnType.STRING, WinEntity::setUsername)
+            .required("win", ColumnType.LONG, WinEntity::setWin)
+            .required("reward", ColumnType.BOOLEAN, WinEntity::setReward)
+            .build();
+
+    public static final ColumnMapping<AfterEntity> AFTER_ENTITY = ColumnMapping.builder(AfterEntity::new)
+            .required("username", ColumnType.STRING, AfterEntity::setUsername)
+            .build();
+
+    public static final ColumnMapping<BeforeEntity> BEFORE_ENTITY = ColumnMapping.builder(BeforeEntity::new)
+            .optional("id", ColumnType.LONG, BeforeEntity::setId)
+            .required("username", ColumnType.STRING, BeforeEntity::setUsername)
+            .build();
+
+    private EntityMappings() {
+    }
+}
@@ -0,0 +1,66 @@
+package org.mybatch5.testbatch.mapping;
+
+import org.springframework.batch.item.file.LineCallbackHandler;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+/**
+ *  FlatFileItemReader 에서 ColumnMapping 을 사용하는 FieldSetMapper
+ *
+ *  기본은 정의한 순서대로 열 번호를 정한다 (ColumnMapping.bindPositions())
+ *  setBindByHeader(true) 이면 skippedLinesCallback 으로 받은 헤더 행의 이름으로 열 번호를 정한다
+ *  (FlatFileItemReader 는 open() 할 때마다 헤더를 건너뛰므로 재시작해도 다시 정해진다)
+ *
+ *  .lineTokenizer(new DelimitedLineTokenizer())   // names() 없이 열 번호로만 읽는다
+ *  .linesToSkip(1)
+ *  .skippedLinesCallback(mapper)
+ *  .fieldSetMapper(mapper)
+ */
+public class MappedFieldSetMapper<T> implements FieldSetMapper<T>, LineCallbackHandler {
+
+    private final ColumnMapping<T> mapping;
+    private final DelimitedLineTokenizer headerTokenizer;
+    private boolean bindByHeader;
+    private ColumnMapper<T> mapper;
+
+    public MappedFieldSetMapper(ColumnMapping<T> mapping) {
+        this(mapping, DelimitedLineTokenizer.DELIMITER_COMMA);
+    }
+
+    public MappedFieldSetMapper(ColumnMapping<T> mapping, String delimiter) {
+        this.mapping = mapping;
+        this.headerTokenizer = new DelimitedLineTokenizer(delimiter);
+    }
+
+    // true 이면 헤더 행의 이름으로 열 번호를 정한다 (기본: 정의한 순서)
+    public void setBindByHeader(boolean bindByHeader) {
+        this.bindByHeader = bindByHeader;
+    }
+
+    // 헤더 행
+    @Override
+    public void handleLine(String line) {
+        if (bindByHeader) {
+            mapper = mapping.bind(headerTokenizer.tokenize(line).getValues());
+        }
+    }
+
+    @Override
+    public T mapFieldSet(FieldSet fieldSet) {
+        if (mapper == null) {
+            if (bindByHeader) {
+                throw new IllegalStateException("Header line has not been read - register this mapper as skippedLinesCallback with linesToSkip(1)");
+            }
+            mapper = mapping.bindPositions();
+        }
+
+        ColumnValues values = index -> index < fieldSet.getFieldCount() ? fieldSet.readString(index) : null; // 앞뒤 공백 제거
+        T item = mapper.map(values);
+        if (item == null) {
+            // FlatFileItemReader 가 행 번호, 원본 행을 붙여 FlatFileParseException 으로 던진다
+            throw new IllegalArgumentException("Invalid row: " + mapper.describeInvalid(values));
+        }
+        return item;
+    }
+}
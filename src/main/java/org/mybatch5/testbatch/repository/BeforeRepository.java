@@ -1,7 +1,13 @@
 package org.mybatch5.testbatch.repository;
 
 import org.mybatch5.testbatch.entity.BeforeEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface BeforeRepository extends JpaRepository<BeforeEntity, Long> {
+
+    // keyset 페이징: WHERE id > :id ORDER BY id ASC LIMIT :limit
+    List<BeforeEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -1,11 +1,17 @@
 package org.mybatch5.testbatch.repository;
 
 import org.mybatch5.testbatch.entity.WinEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface WinRepository extends JpaRepository<WinEntity, Long> {
 
     Page<WinEntity> findByWinGreaterThanEqual(Long win, Pageable pageable);
+
+    // keyset 페이징: WHERE win >= :win AND id > :id ORDER BY id ASC LIMIT :limit
+    List<WinEntity> findByWinGreaterThanEqualAndIdGreaterThanOrderByIdAsc(Long win, Long id, Limit limit);
 }
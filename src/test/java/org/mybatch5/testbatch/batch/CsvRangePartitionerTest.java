@@ -0,0 +1,85 @@
+package org.mybatch5.testbatch.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.mapping.EntityMappings;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRangePartitionerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void partitionsCoverEveryLineOfEveryFileOnce() throws Exception {
+        writeCsv("a.csv", "a", 40);
+        writeCsv("b.csv", "b", 15);
+        Files.writeString(tempDir.resolve("notes.txt"), "not a csv");
+
+        Map<String, ExecutionContext> partitions = new CsvRangePartitioner(tempDir, 1).partition(4);
+
+        // 큰 파일은 여러 구간, 작은 파일도 최소 한 구간
+        assertThat(partitions.size()).isGreaterThan(2);
+
+        List<String> usernames = readAll(partitions);
+
+        assertThat(usernames).hasSize(55).doesNotHaveDuplicates();
+        assertThat(usernames).contains("a-user1", "a-user40", "b-user1", "b-user15");
+    }
+
+    @Test
+    void partitionCountIsCappedByGridSizeForManyFiles() throws Exception {
+        // batchTaskExecutor 의 기본 스레드(4) + 대기열(100) 보다 많은 파일
+        int fileCount = 150;
+        for (int i = 0; i < fileCount; i++) {
+            writeCsv(String.format("f%03d.csv", i), "f" + i, 3);
+        }
+
+        Map<String, ExecutionContext> partitions = new CsvRangePartitioner(tempDir, 1).partition(4);
+
+        assertThat(partitions).hasSize(4);
+        int rangeCount = 0;
+        for (ExecutionContext context : partitions.values()) {
+            rangeCount += context.getInt(CsvRangePartitioner.RANGE_COUNT_KEY);
+        }
+        assertThat(rangeCount).isGreaterThanOrEqualTo(fileCount);
+
+        List<String> usernames = readAll(partitions);
+        assertThat(usernames).hasSize(fileCount * 3).doesNotHaveDuplicates();
+        assertThat(usernames).contains("f0-user1", "f149-user3");
+    }
+
+    private List<String> readAll(Map<String, ExecutionContext> partitions) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            CsvRangeListItemReader<WinEntity> reader = new CsvRangeListItemReader<>(
+                    CsvRangePartitioner.ranges(context), EntityMappings.WIN_ENTITY, "csvReader");
+
+            reader.open(new ExecutionContext());
+            WinEntity entity;
+            while ((entity = reader.read()) != null) {
+                usernames.add(entity.getUsername());
+            }
+            reader.close();
+        }
+        return usernames;
+    }
+
+    private void writeCsv(String fileName, String prefix, int rows) throws Exception {
+        StringBuilder csv = new StringBuilder("id,username,win,reward\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append(i).append(',').append(prefix).append("-user").append(i).append(',').append(i).append(",true\n");
+        }
+        Files.writeString(tempDir.resolve(fileName), csv.toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package org.mybatch5.testbatch.batch;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.listener.RejectedRowCsvWriter;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExcelReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bindsByPositionAndSkipsCellsOfTheWrongType() throws Exception {
+        // 헤더의 내용은 보지 않는다 - 셀 타입이 다른 행(숫자 username, 문자열 win)은 값이 없는 것으로 보고 건너뛴다
+        String file = writeSheet(
+                new Object[]{"번호", "이름", "승리", "보상"},
+                new Object[]{null, "user1", 10, true},
+                new Object[]{null, 12345, 20, true},
+                new Object[]{null, "user3", "1", false},
+                new Object[]{null, "user4", 40, false});
+
+        ExcelReader reader = new ExcelReader(file);
+        reader.open(new ExecutionContext());
+        List<WinEntity> entities = readAll(reader);
+        reader.close();
+
+        assertThat(entities).extracting(WinEntity::getUsername).containsExactly("user1", "user4");
+        assertThat(entities).extracting(WinEntity::getWin).containsExactly(10L, 40L);
+    }
+
+    @Test
+    void rejectedRowIsWrittenToRejectFile() throws Exception {
+        String file = writeSheet(
+                new Object[]{"id", "username", "win", "reward"},
+                new Object[]{null, "user1", 10, true},
+                new Object[]{null, "user2", "abc", true},
+                new Object[]{null, "user3", 30, false});
+        Path rejectFile = tempDir.resolve("rejected.csv");
+        RejectedRowCsvWriter rejectWriter = new RejectedRowCsvWriter(rejectFile);
+
+        ExcelReader reader = new ExcelReader(file);
+        reader.setRejectInvalidRows(true);
+        reader.open(new ExecutionContext());
+
+        // step 의 faultTolerant().skip(RejectedRowException.class) 처럼 예외를 SkipListener 에 넘기고 계속 읽는다
+        List<String> usernames = new ArrayList<>();
+        while (true) {
+            try {
+                WinEntity entity = reader.read();
+                if (entity == null) {
+                    break;
+                }
+                usernames.add(entity.getUsername());
+            } catch (RejectedRowException e) {
+                rejectWriter.onSkipInRead(e);
+            }
+        }
+        reader.close();
+        rejectWriter.close();
+
+        assertThat(usernames).containsExactly("user1", "user3");
+        assertThat(Files.readAllLines(rejectFile, StandardCharsets.UTF_8)).containsExactly(
+                "source,row,reason,detail,values",
+                "sheet0,3,MISSING_DATA,win: expected LONG but was 'abc',,user2,abc,1");
+    }
+
+    @Test
+    void restartResumesFromSavedOffsetWithoutReplay() throws Exception {
+        String file = writeSheet(winRows(20));
+
+        ExecutionContext context = new ExecutionContext();
+        ExcelReader first = new ExcelReader(file);
+        first.open(context);
+        for (int i = 0; i < 7; i++) {
+            first.read();
+        }
+        first.update(context);
+        first.close();
+
+        assertThat(context.getLong("readExcel.current.row.offset")).isPositive();
+
+        // 행 번호 없이 저장된 위치만으로도 다음 행부터 읽는다 (앞의 행을 건너뛰며 읽지 않는다)
+        ExecutionContext offsetOnly = new ExecutionContext();
+        offsetOnly.putLong("readExcel.current.row.offset", context.getLong("readExcel.current.row.offset"));
+
+        for (ExecutionContext restartContext : List.of(context, offsetOnly)) {
+            ExcelReader restarted = new ExcelReader(file);
+            restarted.open(restartContext);
+            List<WinEntity> rest = readAll(restarted);
+            restarted.close();
+
+            assertThat(rest).hasSize(13);
+            assertThat(rest).extracting(WinEntity::getUsername).first().isEqualTo("user8");
+            assertThat(rest).extracting(WinEntity::getUsername).doesNotContain("user1", "user7");
+        }
+    }
+
+    // 헤더 + user1 ~ userN
+    static Object[][] winRows(int count) {
+        Object[][] rows = new Object[count + 1][];
+        rows[0] = new Object[]{"id", "username", "win", "reward"};
+        for (int i = 1; i <= count; i++) {
+            rows[i] = new Object[]{null, "user" + i, i, i % 2 == 0};
+        }
+        return rows;
+    }
+
+    private List<WinEntity> readAll(ExcelReader reader) throws Exception {
+        List<WinEntity> entities = new ArrayList<>();
+        WinEntity entity;
+        while ((entity = reader.read()) != null) {
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    // 값의 자바 타입으로 셀 타입을 정한다 (null 은 셀을 만들지 않는다)
+    private String writeSheet(Object[]... rows) throws Exception {
+        return writeSheet(tempDir.resolve("reader.xlsx"), rows);
+    }
+
+    static String writeSheet(Path path, Object[]... rows) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(path.toFile())) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < rows[r].length; c++) {
+                    Object value = rows[r][c];
+                    if (value == null) {
+                        continue;
+                    }
+                    Cell cell = row.createCell(c);
+                    if (value instanceof Number number) {
+                        cell.setCellValue(number.doubleValue());
+                    } else if (value instanceof Boolean bool) {
+                        cell.setCellValue(bool);
+                    } else {
+                        cell.setCellValue(value.toString());
+                    }
+                }
+            }
+
+            workbook.write(out);
+        }
+        return path.toString();
+    }
+}
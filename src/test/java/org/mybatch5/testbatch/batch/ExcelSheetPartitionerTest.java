@@ -0,0 +1,99 @@
+package org.mybatch5.testbatch.batch;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.FileOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExcelSheetPartitionerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void partitionsCoverEveryRowOfEverySheetOnce() throws Exception {
+        String file = writeWorkbook(2, 25);
+
+        Map<String, ExecutionContext> partitions = new ExcelSheetPartitioner(file, 10).partition(8);
+
+        // 시트마다 10 + 10 + 5 행 - 구간이 gridSize 보다 적으면 구간마다 파티션 하나
+        assertThat(partitions).hasSize(6);
+
+        List<String> usernames = readAll(file, partitions);
+
+        assertThat(usernames).hasSize(50).doesNotHaveDuplicates();
+        assertThat(usernames).contains("s0-user1", "s0-user25", "s1-user1", "s1-user25");
+    }
+
+    @Test
+    void partitionCountIsCappedByGridSizeForManyRanges() throws Exception {
+        // batchTaskExecutor 의 기본 스레드(4) + 대기열(100) 보다 많은 구간 (시트마다 60 개)
+        String file = writeWorkbook(2, 60);
+
+        Map<String, ExecutionContext> partitions = new ExcelSheetPartitioner(file, 1).partition(4);
+
+        assertThat(partitions).hasSize(4);
+        int rangeCount = 0;
+        for (ExecutionContext context : partitions.values()) {
+            rangeCount += context.getInt(ExcelSheetPartitioner.RANGE_COUNT_KEY);
+        }
+        assertThat(rangeCount).isEqualTo(120);
+
+        List<String> usernames = readAll(file, partitions);
+        assertThat(usernames).hasSize(120).doesNotHaveDuplicates();
+        assertThat(usernames).contains("s0-user1", "s0-user60", "s1-user1", "s1-user60");
+    }
+
+    private List<String> readAll(String file, Map<String, ExecutionContext> partitions) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            ExcelRangeListItemReader reader = new ExcelRangeListItemReader(
+                    file, ExcelSheetPartitioner.ranges(context), "readExcel");
+
+            reader.open(new ExecutionContext());
+            WinEntity entity;
+            while ((entity = reader.read()) != null) {
+                usernames.add(entity.getUsername());
+            }
+            reader.close();
+        }
+        return usernames;
+    }
+
+    private String writeWorkbook(int sheets, int rows) throws Exception {
+        Path path = tempDir.resolve("partition.xlsx");
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(path.toFile())) {
+
+            for (int s = 0; s < sheets; s++) {
+                Sheet sheet = workbook.createSheet("Sheet" + (s + 1));
+
+                Row header = sheet.createRow(0);
+                header.createCell(1).setCellValue("username");
+                header.createCell(2).setCellValue("win");
+                header.createCell(3).setCellValue("reward");
+
+                for (int i = 1; i <= rows; i++) {
+                    Row row = sheet.createRow(i);
+                    row.createCell(1).setCellValue("s" + s + "-user" + i);
+                    row.createCell(2).setCellValue(i);
+                    row.createCell(3).setCellValue(i % 2 == 0);
+                }
+            }
+            workbook.write(out);
+        }
+        return path.toString();
+    }
+}
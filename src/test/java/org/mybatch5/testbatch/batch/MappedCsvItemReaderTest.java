@@ -0,0 +1,124 @@
+package org.mybatch5.testbatch.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatch5.testbatch.entity.WinEntity;
+import org.mybatch5.testbatch.mapping.EntityMappings;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedCsvItemReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsQuotedValuesAcrossWindowBoundaries() throws Exception {
+        Path file = write("id,username,win,reward\r\n"
+                + "1,user1,10,true\r\n"
+                + "\r\n"
+                + "# comment\r\n"
+                + "2,\"kim, \"\"A\"\"\",20,false\r\n"
+                + "3, user3 ,30,true");
+
+        MappedCsvItemReader<WinEntity> reader = reader(file);
+        reader.open(new ExecutionContext());
+        List<WinEntity> entities = readAll(reader);
+        reader.close();
+
+        assertThat(entities).extracting(WinEntity::getUsername).containsExactly("user1", "kim, \"A\"", "user3");
+        assertThat(entities).extracting(WinEntity::getWin).containsExactly(10L, 20L, 30L);
+        assertThat(entities).extracting(WinEntity::getReward).containsExactly(true, false, true);
+    }
+
+    @Test
+    void restartsFromSavedOffset() throws Exception {
+        StringBuilder csv = new StringBuilder("id,username,win,reward\n");
+        for (int i = 1; i <= 20; i++) {
+            csv.append(i).append(",user").append(i).append(',').append(i).append(",true\n");
+        }
+        Path file = write(csv.toString());
+
+        ExecutionContext context = new ExecutionContext();
+        MappedCsvItemReader<WinEntity> first = reader(file);
+        first.open(context);
+        for (int i = 0; i < 7; i++) {
+            first.read();
+        }
+        first.update(context);
+        first.close();
+
+        MappedCsvItemReader<WinEntity> restarted = reader(file);
+        restarted.open(context);
+        List<WinEntity> rest = readAll(restarted);
+        restarted.close();
+
+        assertThat(rest).hasSize(13);
+        assertThat(rest.get(0).getUsername()).isEqualTo("user8");
+    }
+
+    @Test
+    void invalidRowFailsWithLineNumber() throws Exception {
+        Path file = write("id,username,win,reward\n1,user1,ten,true\n");
+
+        MappedCsvItemReader<WinEntity> reader = reader(file);
+        reader.open(new ExecutionContext());
+
+        assertThatThrownBy(reader::read)
+                .isInstanceOf(FlatFileParseException.class)
+                .hasMessageContaining("win: expected LONG but was 'ten'")
+                .extracting(e -> ((FlatFileParseException) e).getLineNumber()).isEqualTo(2);
+        reader.close();
+    }
+
+    @Test
+    void bindsByPositionUnlessHeaderBindingIsEnabled() throws Exception {
+        Path localized = write("번호,이름,승리,보상\n1,user1,10,true\n");
+        MappedCsvItemReader<WinEntity> positional = reader(localized);
+        positional.open(new ExecutionContext());
+        assertThat(positional.read().getUsername()).isEqualTo("user1");
+        positional.close();
+
+        Path reordered = write("reward,win,username,id\ntrue,10,user1,1\n");
+        MappedCsvItemReader<WinEntity> byHeader = reader(reordered);
+        byHeader.setBindByHeader(true);
+        byHeader.open(new ExecutionContext());
+        WinEntity entity = byHeader.read();
+        byHeader.close();
+
+        assertThat(entity.getUsername()).isEqualTo("user1");
+        assertThat(entity.getWin()).isEqualTo(10L);
+        assertThat(entity.getReward()).isTrue();
+    }
+
+    // window 를 작게 해서 줄이 window 경계에 걸리는 경우도 같이 확인한다
+    private MappedCsvItemReader<WinEntity> reader(Path file) {
+        MappedCsvItemReader<WinEntity> reader = new MappedCsvItemReader<>(file, EntityMappings.WIN_ENTITY, "csvReader");
+        reader.setWindowSize(40);
+        return reader;
+    }
+
+    private List<WinEntity> readAll(MappedCsvItemReader<WinEntity> reader) throws Exception {
+        List<WinEntity> entities = new ArrayList<>();
+        WinEntity entity;
+        while ((entity = reader.read()) != null) {
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = tempDir.resolve("win.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,46 @@
+package org.mybatch5.testbatch.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingExcelRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restartResumesFromSavedOffsetWithoutReplay() throws Exception {
+        String file = ExcelReaderTest.writeSheet(tempDir.resolve("rows.xlsx"), ExcelReaderTest.winRows(10));
+
+        // 헤더(0) ~ 4 번 행까지 읽고 저장
+        ExecutionContext context = new ExecutionContext();
+        StreamingExcelRowReader first = new StreamingExcelRowReader(file);
+        first.open(context);
+        for (int i = 0; i < 5; i++) {
+            first.read();
+        }
+        first.update(context);
+        first.close();
+
+        assertThat(context.getInt("current.row.number")).isEqualTo(5);
+        assertThat(context.getLong("current.row.offset")).isPositive();
+
+        StreamingExcelRowReader restarted = new StreamingExcelRowReader(file);
+        restarted.open(context);
+        List<Integer> rowNums = new ArrayList<>();
+        ExcelRow row;
+        while ((row = restarted.read()) != null) {
+            rowNums.add(row.getRowNum());
+        }
+        restarted.close();
+
+        assertThat(rowNums).containsExactly(5, 6, 7, 8, 9, 10);
+    }
+}
@@ -0,0 +1,154 @@
+package org.mybatch5.testbatch.batch;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XlsxSheetStreamerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsRowsWithTypedCells() throws Exception {
+        String file = writeWorkbook();
+
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(file, 0)) {
+            ExcelRow header = streamer.nextRow();
+            assertThat(header.getRowNum()).isEqualTo(0);
+            assertThat(header.getStringValue(1)).isEqualTo("username");
+
+            ExcelRow row = streamer.nextRow();
+            assertThat(row.getRowNum()).isEqualTo(1);
+            assertThat(row.getCellType(0)).isEqualTo(CellType.BLANK);
+            assertThat(row.getCellType(1)).isEqualTo(CellType.STRING);
+            assertThat(row.getStringValue(1)).isEqualTo("홍길동");
+            assertThat(row.getCellType(2)).isEqualTo(CellType.NUMERIC);
+            assertThat((long) row.getNumericValue(2)).isEqualTo(12L);
+            assertThat(row.getCellType(3)).isEqualTo(CellType.BOOLEAN);
+            assertThat(row.getBooleanValue(3)).isTrue();
+
+            // 없는 셀은 예외 없이 빈 값으로 읽힌다
+            assertThat(row.getStringValue(10)).isNull();
+            assertThat(row.getNumericValue(10)).isZero();
+            assertThat(row.getBooleanValue(10)).isFalse();
+
+            // 행 번호가 비어있는 행(2)은 건너뛰고 다음 물리 행을 읽는다
+            assertThat(streamer.skipRow()).isTrue();
+            assertThat(streamer.nextRow()).isNull();
+        }
+    }
+
+    @Test
+    void readsFirstRowAfterSeekingWithoutReopening() throws Exception {
+        String file = writeWorkbook();
+
+        long afterDataRow;
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(file, 0)) {
+            streamer.nextRow();
+            streamer.nextRow();
+            afterDataRow = streamer.getPosition();
+        }
+
+        // 이동한 뒤에도 첫 행(헤더)을 읽을 수 있고, 이후의 nextRow() 는 이동한 위치부터 이어진다
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(file, 0, afterDataRow)) {
+            ExcelRow header = streamer.readFirstRow();
+            assertThat(header.getRowNum()).isEqualTo(0);
+            assertThat(header.getStringValue(1)).isEqualTo("username");
+
+            assertThat(streamer.nextRow().getRowNum()).isEqualTo(3);
+            assertThat(streamer.nextRow()).isNull();
+        }
+    }
+
+    @Test
+    void readsSheetWithPrefixedNamespace() throws Exception {
+        // <x:sheetData>, <x:row> 처럼 접두사를 쓰는 시트
+        String file = writePrefixedWorkbook(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                        + "<x:worksheet xmlns:x=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                        + "<x:sheetData>"
+                        + "<x:row r=\"1\"><x:c r=\"A1\" t=\"inlineStr\"><x:is><x:t>id</x:t></x:is></x:c></x:row>"
+                        + "<x:row r=\"2\"><x:c r=\"A2\"><x:v>7</x:v></x:c><x:c r=\"B2\" t=\"inlineStr\"><x:is><x:t>홍길동</x:t></x:is></x:c></x:row>"
+                        + "<x:row r=\"3\"><x:c r=\"B3\" t=\"b\"><x:v>1</x:v></x:c></x:row>"
+                        + "</x:sheetData>"
+                        + "</x:worksheet>");
+
+        long afterFirstRow;
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(file, 0)) {
+            assertThat(streamer.nextRow().getStringValue(0)).isEqualTo("id");
+            afterFirstRow = streamer.getPosition();
+
+            ExcelRow row = streamer.nextRow();
+            assertThat(row.getRowNum()).isEqualTo(1);
+            assertThat((long) row.getNumericValue(0)).isEqualTo(7L);
+            assertThat(row.getStringValue(1)).isEqualTo("홍길동");
+
+            assertThat(streamer.nextRow().getBooleanValue(1)).isTrue();
+            assertThat(streamer.nextRow()).isNull();
+        }
+
+        // 재시작 위치에서 열어도 </x:sheetData> 까지 읽고 끝난다
+        try (XlsxSheetStreamer streamer = new XlsxSheetStreamer(file, 0, afterFirstRow)) {
+            assertThat(streamer.nextRow().getRowNum()).isEqualTo(1);
+            assertThat(streamer.nextRow().getRowNum()).isEqualTo(2);
+            assertThat(streamer.nextRow()).isNull();
+        }
+    }
+
+    private String writeWorkbook() throws Exception {
+        Path path = tempDir.resolve("streamer.xlsx");
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook();
+             FileOutputStream out = new FileOutputStream(path.toFile())) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("id");
+            header.createCell(1).setCellValue("username");
+
+            Row row = sheet.createRow(1);
+            row.createCell(1).setCellValue("홍길동");
+            row.createCell(2).setCellValue(12);
+            row.createCell(3).setCellValue(true);
+
+            sheet.createRow(3).createCell(1).setCellValue("last");
+
+            workbook.write(out);
+        }
+        return path.toString();
+    }
+
+    // POI 로 만든 파일의 시트 xml 을 sheetXml 로 바꾼다
+    private String writePrefixedWorkbook(String sheetXml) throws Exception {
+        Path source = Path.of(writeWorkbook());
+        Path path = tempDir.resolve("prefixed.xlsx");
+
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(source));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if ("xl/worksheets/sheet1.xml".equals(entry.getName())) {
+                    out.write(sheetXml.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+            }
+        }
+        return path.toString();
+    }
+}